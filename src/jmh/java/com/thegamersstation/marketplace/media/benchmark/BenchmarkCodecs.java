@@ -0,0 +1,21 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+
+final class BenchmarkCodecs {
+
+    private BenchmarkCodecs() {
+    }
+
+    /**
+     * Codecs for the codec parameter. Unlike the application, a missing WebP writer fails the
+     * benchmark instead of silently measuring the fallback.
+     */
+    static ImageCodecs create(String codec) {
+        ImageCodecs codecs = new ImageCodecs(codec);
+        if ("webp".equals(codec) && !"webp".equals(codecs.renditionEncoder("jpg").format())) {
+            throw new IllegalStateException("No WebP ImageIO writer on the classpath");
+        }
+        return codecs;
+    }
+}
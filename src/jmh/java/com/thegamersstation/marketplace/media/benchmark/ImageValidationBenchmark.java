@@ -0,0 +1,56 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import com.thegamersstation.marketplace.media.ImageProcessor;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload validation as done while staging a file: magic bytes and SHA-256 content hash from a
+ * single buffered pass, then the decompression-bomb check from the image header.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ImageValidationBenchmark {
+
+    @Param({"JPEG_12MP", "PNG_SCREENSHOT", "GIF_ANIMATED", "WEBP"})
+    public MediaFixtures.Fixture fixture;
+
+    private Path source;
+    private ImageProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = MediaFixtures.get(fixture);
+        processor = new ImageProcessor(new ImageCodecs("source"), new int[]{200, 400, 800, 1600},
+                50_000_000L, System.getProperty("java.io.tmpdir"));
+    }
+
+    @Benchmark
+    public byte[] validate(PeakHeap heap) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new BufferedInputStream(new DigestInputStream(Files.newInputStream(source), digest))) {
+            if (ImageCodecs.detectContentType(in.readNBytes(ImageCodecs.HEADER_LENGTH)).isEmpty()) {
+                throw new IllegalStateException("Fixture not recognised: " + source);
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        processor.validateDimensions(source);
+        heap.sample();
+        return digest.digest();
+    }
+}
@@ -0,0 +1,222 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Benchmark input images, generated once into target/jmh-fixtures (override with -Djmh.fixtures.dir)
+ * so no binaries live in the repository. Content is seeded and shaped like real uploads: a noisy,
+ * smooth-gradient camera photo compresses and decodes like one, a UI screenshot has flat areas and text.
+ */
+public final class MediaFixtures {
+
+    public enum Fixture {
+        /** 4000x3000 camera photo, ~12MP */
+        JPEG_12MP("photo-12mp.jpg"),
+        /** 1920x1080 desktop screenshot */
+        PNG_SCREENSHOT("screenshot.png"),
+        /** 480x270, 24 frames; thumbnails decode the first frame only */
+        GIF_ANIMATED("animated.gif"),
+        /** 1600x1200 photo as uploaded by mobile clients */
+        WEBP("photo.webp");
+
+        private final String fileName;
+
+        Fixture(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String extension() {
+            return fileName.substring(fileName.lastIndexOf('.') + 1);
+        }
+    }
+
+    private MediaFixtures() {
+    }
+
+    /**
+     * Path of the fixture, generating it on first use.
+     */
+    public static synchronized Path get(Fixture fixture) throws IOException {
+        Path dir = Paths.get(System.getProperty("jmh.fixtures.dir", "target/jmh-fixtures"));
+        Path file = dir.resolve(fixture.fileName);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        Files.createDirectories(dir);
+        Path partial = Files.createTempFile(dir, ".fixture-", "." + fixture.extension());
+        try {
+            switch (fixture) {
+                case JPEG_12MP -> write(photo(4000, 3000, 12), "jpeg", 0.92f, partial);
+                case PNG_SCREENSHOT -> write(screenshot(1920, 1080), "png", 1f, partial);
+                case GIF_ANIMATED -> writeAnimatedGif(480, 270, 24, partial);
+                case WEBP -> write(photo(1600, 1200, 16), "webp", 0.85f, partial);
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return file;
+    }
+
+    /**
+     * Smooth lighting gradient with large soft shapes and per-pixel sensor noise.
+     */
+    static BufferedImage photo(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setPaint(new GradientPaint(0, 0, new Color(70, 110, 160), width, height, new Color(210, 180, 140)));
+            graphics.fillRect(0, 0, width, height);
+            for (int i = 0; i < 40; i++) {
+                int size = width / 12 + random.nextInt(width / 4);
+                graphics.setPaint(new RadialGradientPaint(random.nextInt(width), random.nextInt(height), size,
+                        new float[]{0f, 1f},
+                        new Color[]{new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 180),
+                                new Color(0, 0, 0, 0)}));
+                graphics.fillRect(0, 0, width, height);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(13) - 6;
+                int rgb = row[x];
+                row[x] = (clamp(((rgb >> 16) & 0xFF) + noise) << 16)
+                        | (clamp(((rgb >> 8) & 0xFF) + noise) << 8)
+                        | clamp((rgb & 0xFF) + noise);
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    /**
+     * Flat panels, a sidebar, rows of text and a few colored buttons.
+     */
+    static BufferedImage screenshot(int width, int height) {
+        Random random = new Random(7);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(new Color(245, 246, 248));
+            graphics.fillRect(0, 0, width, height);
+            graphics.setColor(new Color(33, 37, 41));
+            graphics.fillRect(0, 0, width, 56);
+            graphics.setColor(new Color(230, 232, 236));
+            graphics.fillRect(0, 56, 280, height - 56);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 15));
+            for (int y = 90; y < height - 20; y += 26) {
+                graphics.setColor(new Color(60, 64, 70));
+                graphics.drawString("Listing " + y + " - PlayStation 5 bundle, like new, Riyadh", 310, y);
+                graphics.drawString("Menu item " + y / 26, 24, y);
+                if (random.nextInt(6) == 0) {
+                    graphics.setColor(new Color(13, 110, 253));
+                    graphics.fillRoundRect(width - 220, y - 18, 160, 24, 8, 8);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static void write(BufferedImage image, String format, float quality, Path file) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalStateException("No ImageIO writer for " + format + " on the classpath");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality < 1f && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Looping GIF of a ball moving across a photo-like background.
+     */
+    private static void writeAnimatedGif(int width, int height, int frames, Path file) throws IOException {
+        BufferedImage background = photo(width, height, 3);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(
+                    ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_RGB), param);
+            String format = metadata.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+            IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", "8");
+            control.setAttribute("transparentColorIndex", "0");
+            root.appendChild(control);
+
+            IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[]{1, 0, 0});
+            extensions.appendChild(loop);
+            root.appendChild(extensions);
+            metadata.setFromTree(format, root);
+
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames; i++) {
+                BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = frame.createGraphics();
+                try {
+                    graphics.drawImage(background, 0, 0, null);
+                    graphics.setColor(new Color(230, 60, 60));
+                    graphics.fillOval(i * (width - 60) / frames, height / 2 - 30, 60, 60);
+                } finally {
+                    graphics.dispose();
+                }
+                writer.writeToSequence(new IIOImage(frame, null, metadata), param);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
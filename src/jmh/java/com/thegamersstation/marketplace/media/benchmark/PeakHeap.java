@@ -0,0 +1,44 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+/**
+ * Reports the heap high-water mark of each iteration as the "peakHeapMb" secondary result.
+ *
+ * <p>Peaks are reset (after a GC) when the iteration starts and sampled after every operation.
+ * The value is the sum of the per-pool peaks, so it slightly overstates the true peak and
+ * includes garbage not yet collected. Benchmarks run one thread with a fixed heap, so it tracks
+ * the largest working set (decoded raster plus scaled copies) of one operation. Compare it
+ * between parameters, not as an absolute figure.</p>
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class PeakHeap {
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+    public long peakHeapMb;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        System.gc();
+        HEAP_POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+        peakHeapMb = 0;
+    }
+
+    public void sample() {
+        long peak = HEAP_POOLS.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        peakHeapMb = Math.max(peakHeapMb, peak / (1024 * 1024));
+    }
+}
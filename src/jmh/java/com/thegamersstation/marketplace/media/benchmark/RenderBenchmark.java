@@ -0,0 +1,60 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import com.thegamersstation.marketplace.media.ImageProcessor;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import com.thegamersstation.marketplace.media.codec.ImageEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single rendition width, decoded and resized straight from the original, as served by the
+ * on-demand render endpoint on a cache miss. Shows how the cost of each width scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    @Param({"JPEG_12MP", "PNG_SCREENSHOT", "GIF_ANIMATED", "WEBP"})
+    public MediaFixtures.Fixture fixture;
+
+    @Param({"webp", "jpeg", "source"})
+    public String codec;
+
+    @Param({"200", "400", "800", "1600"})
+    public int width;
+
+    private Path source;
+    private Path target;
+    private ImageProcessor processor;
+    private ImageEncoder encoder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = MediaFixtures.get(fixture);
+        target = Files.createTempFile("render-benchmark-", "." + fixture.extension());
+        ImageCodecs codecs = BenchmarkCodecs.create(codec);
+        encoder = codecs.renditionEncoder(fixture.extension());
+        processor = new ImageProcessor(codecs, new int[]{200, 400, 800, 1600},
+                50_000_000L, System.getProperty("java.io.tmpdir"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public long render(PeakHeap heap) throws IOException {
+        processor.render(source, width, encoder, target);
+        heap.sample();
+        return Files.size(target);
+    }
+}
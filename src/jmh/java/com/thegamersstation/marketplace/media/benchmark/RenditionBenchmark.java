@@ -0,0 +1,52 @@
+package com.thegamersstation.marketplace.media.benchmark;
+
+import com.thegamersstation.marketplace.media.ImageProcessor;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full rendition set for one upload (200/400/800/1600 and the BlurHash placeholder) from a
+ * single subsampled decode, as run after every upload and by the thumbnail backfill job.
+ * Storage I/O is excluded; encoded files are written to the temp dir and deleted.
+ *
+ * <p>codec is media.renditions.format: webp, jpeg, or source (the original's encoding).</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class RenditionBenchmark {
+
+    @Param({"JPEG_12MP", "PNG_SCREENSHOT", "GIF_ANIMATED", "WEBP"})
+    public MediaFixtures.Fixture fixture;
+
+    @Param({"webp", "jpeg", "source"})
+    public String codec;
+
+    private Path source;
+    private ImageProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = MediaFixtures.get(fixture);
+        processor = new ImageProcessor(BenchmarkCodecs.create(codec), new int[]{200, 400, 800, 1600},
+                50_000_000L, System.getProperty("java.io.tmpdir"));
+    }
+
+    @Benchmark
+    public String renditionSet(PeakHeap heap) throws IOException {
+        ImageProcessor.RenditionSet renditions = processor.generateRenditions(source, fixture.extension());
+        heap.sample();
+        for (ImageProcessor.RenditionFile file : renditions.files()) {
+            Files.delete(file.file());
+        }
+        return renditions.placeholder();
+    }
+}
@@ -0,0 +1,187 @@
+package com.thegamersstation.marketplace.messaging.benchmark;
+
+import com.thegamersstation.marketplace.common.util.ContentSanitizer;
+import com.thegamersstation.marketplace.common.util.ProfanityFilter;
+import com.thegamersstation.marketplace.messaging.dto.MessageDto;
+import com.thegamersstation.marketplace.messaging.dto.SendMessageRequest;
+import com.thegamersstation.marketplace.messaging.entity.Message;
+import com.thegamersstation.marketplace.messaging.mapper.MessageMapper;
+import com.thegamersstation.marketplace.messaging.repository.ConversationParticipantStatusRepository;
+import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import com.thegamersstation.marketplace.messaging.repository.MessageRepository;
+import com.thegamersstation.marketplace.messaging.repository.UserUnreadTotalRepository;
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
+import com.thegamersstation.marketplace.messaging.service.ConversationSummaryBuffer;
+import com.thegamersstation.marketplace.messaging.service.MessageService;
+import com.thegamersstation.marketplace.messaging.service.MessageWritePipeline;
+import com.thegamersstation.marketplace.messaging.service.UnreadCounters;
+import com.thegamersstation.marketplace.notification.EmailNotificationService;
+import com.thegamersstation.marketplace.websocket.PresenceRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageService#sendMessage} against MySQL (Testcontainers, so Docker must be running)
+ * migrated with the application's Flyway scripts, reporting how many statements one send executes
+ * as the "statementsPerSend" secondary result. Statements are counted at the data source by
+ * {@link StatementCounter}, so the number is what reaches the database: the participant query,
+ * the insert and the two unread counter updates, plus the membership lookup when it is not cached.
+ *
+ * <p>"warm" sends to a conversation whose membership is cached (the steady state of a chat);
+ * "cold" expires the membership on every read, so the lookup hits the database each time.
+ * The primary score includes the database round trips of a local container.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageSendBenchmark {
+
+    private static final long SELLER_ID = 1L;
+    private static final long BUYER_ID = 2L;
+    private static final long POST_ID = 10L;
+    private static final long CONVERSATION_ID = 100L;
+
+    @Param({"warm", "cold"})
+    public String membership;
+
+    private final StatementCounter counter = new StatementCounter();
+    private final SendMessageRequest request = SendMessageRequest.builder()
+            .content("Hi, is the controller still available? I can pick it up today.")
+            .build();
+    private MySQLContainer<?> mysql;
+    private HikariDataSource pool;
+    private AnnotationConfigApplicationContext context;
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mysql = new MySQLContainer<>("mysql:8.0");
+        mysql.start();
+        Flyway.configure()
+                .dataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(mysql.getJdbcUrl());
+        pool.setUsername(mysql.getUsername());
+        pool.setPassword(mysql.getPassword());
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> counter.wrap(pool));
+        context.register(MessagingPersistenceConfig.class);
+        context.refresh();
+        seed(context.getBean(JdbcTemplate.class));
+
+        ConversationRepository conversations = context.getBean(ConversationRepository.class);
+        MessageRepository messages = context.getBean(MessageRepository.class);
+        ConversationParticipantStatusRepository statuses = context.getBean(ConversationParticipantStatusRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        UnreadCounters unreadCounters = new UnreadCounters(statuses,
+                context.getBean(UserUnreadTotalRepository.class), messages);
+
+        // An entry that expires on access makes every lookup a miss
+        ConversationMembershipCache membershipCache = new ConversationMembershipCache(
+                conversations, 10_000, "warm".equals(membership) ? 60 : 0);
+        messageService = new MessageService(
+                messages,
+                conversations,
+                membershipCache,
+                new ConversationSummaryBuffer(conversations, transactionManager),
+                new MessageWritePipeline(context.getBean(JdbcTemplate.class), unreadCounters, transactionManager,
+                        new SimpleMeterRegistry(), false, 1, 1, 0, 0),
+                unreadCounters,
+                statuses,
+                new IdOnlyMessageMapper(),
+                new ContentSanitizer(),
+                new ProfanityFilter(),
+                new SimpMessagingTemplate((message, timeout) -> true),
+                new EmailNotificationService(null),
+                new PresenceRegistry(new StaticListableBeanFactory().getBeanProvider(SimpUserRegistry.class),
+                        new SimpleMeterRegistry(), "simple", 0, 0)
+        );
+        membershipCache.get(CONVERSATION_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        if (mysql != null) {
+            mysql.stop();
+        }
+    }
+
+    /**
+     * Secondary results, kept apart because JMH treats every public field of an
+     * {@link AuxCounters} state as a counter.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+
+        /** Highest number of statements any send issued during the iteration */
+        public long statementsPerSend;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statementsPerSend = 0;
+        }
+    }
+
+    @Benchmark
+    public MessageDto send(Statements statements) {
+        counter.reset();
+        MessageDto sent = messageService.sendMessage(CONVERSATION_ID, request, BUYER_ID);
+        statements.statementsPerSend = Math.max(statements.statementsPerSend, counter.statements());
+        return sent;
+    }
+
+    /**
+     * A seller, a buyer and one conversation about the seller's post, with both participants' status rows.
+     */
+    private static void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO users (id, phone_number, username, profile_completed) VALUES (?, '+966500000001', 'seller', TRUE)", SELLER_ID);
+        jdbc.update("INSERT INTO users (id, phone_number, username, profile_completed) VALUES (?, '+966500000002', 'buyer', TRUE)", BUYER_ID);
+        jdbc.update("INSERT INTO posts (id, owner_id, type, title, description, price, category_id, city_id, status) " +
+                "SELECT ?, ?, 'SELL', 'Controller', 'Barely used', 150, MIN(c.id), (SELECT MIN(id) FROM cities), 'ACTIVE' " +
+                "FROM categories c", POST_ID, SELLER_ID);
+        jdbc.update("INSERT INTO conversations (id, post_id, seller_id, buyer_id) VALUES (?, ?, ?, ?)",
+                CONVERSATION_ID, POST_ID, SELLER_ID, BUYER_ID);
+        jdbc.update("INSERT INTO conversation_participants_status (conversation_id, user_id) VALUES (?, ?), (?, ?)",
+                CONVERSATION_ID, SELLER_ID, CONVERSATION_ID, BUYER_ID);
+    }
+
+    /**
+     * The generated mapper needs Spring to inject its user mapper; mapping is not what is measured here.
+     */
+    private static final class IdOnlyMessageMapper extends MessageMapper {
+        @Override
+        public MessageDto toDto(Message message, Long currentUserId) {
+            return MessageDto.builder()
+                    .id(message.getId())
+                    .conversationId(message.getConversation().getId())
+                    .content(message.getContent())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.thegamersstation.marketplace.messaging.benchmark;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts the statements executed through a data source on the calling thread, with
+ * datasource-proxy sitting between the application and the connection pool.
+ *
+ * <p>Every query, insert and update the application runs counts, whether it comes from Hibernate,
+ * a Spring Data query or a JdbcTemplate. What the driver does on its own (autocommit and
+ * read-only switches, commits) is not a statement and is not counted.</p>
+ */
+final class StatementCounter {
+
+    private static final String DATA_SOURCE_NAME = "benchmark";
+
+    DataSource wrap(DataSource dataSource) {
+        return ProxyDataSourceBuilder.create(DATA_SOURCE_NAME, dataSource)
+                .countQuery()
+                .build();
+    }
+
+    long statements() {
+        QueryCount count = QueryCountHolder.get(DATA_SOURCE_NAME);
+        return count != null ? count.getTotal() : 0;
+    }
+
+    void reset() {
+        QueryCountHolder.clear();
+    }
+}
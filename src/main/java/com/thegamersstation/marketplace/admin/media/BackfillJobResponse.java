@@ -0,0 +1,25 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillJobResponse {
+    private Long jobId;
+    /** RUNNING, CANCELLED, COMPLETED, FAILED, or INTERRUPTED (was running when the app stopped) */
+    private String status;
+    private Long lastImageId;
+    private Integer processed;
+    private Integer skipped;
+    private Integer failed;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
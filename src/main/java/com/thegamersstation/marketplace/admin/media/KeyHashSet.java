@@ -0,0 +1,87 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Set of storage keys held as 64-bit hashes in an open-addressing table: 16 to 32 bytes per key
+ * at the default load factor, against ~100 for a HashSet of Strings.
+ *
+ * <p>A hash collision makes an unrelated key look present. The orphan collector only uses the set
+ * to decide what to keep, so a collision (about 1 in 10^7 at ten million keys) keeps an orphan
+ * a little longer and never deletes a referenced object.</p>
+ */
+class KeyHashSet {
+
+    /** Marks an empty slot; a key hashing to 0 is stored as 1 instead */
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+
+    KeyHashSet() {
+        table = new long[1 << 16];
+    }
+
+    void add(String key) {
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        if (insert(table, hash(key))) {
+            size++;
+        }
+    }
+
+    boolean contains(String key) {
+        long hash = hash(key);
+        int mask = table.length - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            if (table[slot] == hash) {
+                return true;
+            }
+            if (table[slot] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] table, long hash) {
+        int mask = table.length - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            if (table[slot] == hash) {
+                return false;
+            }
+            if (table[slot] == EMPTY) {
+                table[slot] = hash;
+                return true;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] resized = new long[capacity];
+        Arrays.stream(table).filter(hash -> hash != EMPTY).forEach(hash -> insert(resized, hash));
+        table = resized;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with a murmur3 mix so the low bits used for the slot are well spread.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
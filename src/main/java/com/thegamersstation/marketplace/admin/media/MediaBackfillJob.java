@@ -0,0 +1,68 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted progress of a rendition backfill run, used to resume after cancel or restart.
+ */
+@Entity
+@Table(name = "media_backfill_jobs")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaBackfillJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    /**
+     * Highest post_images.id fully processed (keyset cursor)
+     */
+    @Column(name = "last_image_id", nullable = false)
+    @Builder.Default
+    private Long lastImageId = 0L;
+
+    @Column(name = "processed_count", nullable = false)
+    @Builder.Default
+    private Integer processedCount = 0;
+
+    @Column(name = "skipped_count", nullable = false)
+    @Builder.Default
+    private Integer skippedCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    @Builder.Default
+    private Integer failedCount = 0;
+
+    @CreatedDate
+    @Column(name = "started_at", nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        RUNNING,
+        CANCELLED,
+        COMPLETED,
+        FAILED
+    }
+}
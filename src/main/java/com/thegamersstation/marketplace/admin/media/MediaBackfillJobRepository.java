@@ -0,0 +1,20 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaBackfillJobRepository extends JpaRepository<MediaBackfillJob, Long> {
+
+    Optional<MediaBackfillJob> findFirstByOrderByIdDesc();
+
+    /**
+     * Latest job, locked so instances starting a backfill at the same time are serialized.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MediaBackfillJob> findTopByOrderByIdDesc();
+}
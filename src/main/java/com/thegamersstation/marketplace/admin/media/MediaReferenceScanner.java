@@ -0,0 +1,47 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import com.thegamersstation.marketplace.post.PostImageRepository;
+import com.thegamersstation.marketplace.store.StoreRepository;
+import com.thegamersstation.marketplace.user.repository.UsersRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Mark phase of the orphan media collector: streams every image URL the database references
+ * (post images, user profile/background images, store logos/banners) without loading entities.
+ */
+@Component
+@RequiredArgsConstructor
+class MediaReferenceScanner {
+
+    private final PostImageRepository postImageRepository;
+    private final UsersRepository usersRepository;
+    private final StoreRepository storeRepository;
+
+    /**
+     * Pass every referenced URL to the consumer (nulls skipped). The streams hold the connection
+     * until fully read, so the consumer should only do in-memory work.
+     */
+    @Transactional(readOnly = true)
+    public void scan(Consumer<String> consumer) {
+        drain(postImageRepository.streamImageUrls(), consumer);
+        drain(usersRepository.streamImageUrls(), consumer);
+        drain(storeRepository.streamImageUrls(), consumer);
+    }
+
+    private static void drain(Stream<Object[]> rows, Consumer<String> consumer) {
+        try (rows) {
+            rows.forEach(row -> {
+                for (Object url : row) {
+                    if (url != null) {
+                        consumer.accept((String) url);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
+import com.thegamersstation.marketplace.media.ImageRenditions;
+import com.thegamersstation.marketplace.media.MediaObjectRegistry;
+import com.thegamersstation.marketplace.media.storage.ListedObject;
+import com.thegamersstation.marketplace.media.storage.LocalMediaStorage;
+import com.thegamersstation.marketplace.media.storage.MediaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep collector for stored media nothing points at: uploads never attached to a
+ * post, and images whose release was missed (e.g. replaced before the deletion queue existed).
+ *
+ * <ol>
+ *   <li>Mark: stream every image URL referenced from post_images, users and stores into a
+ *       {@link KeyHashSet} of original keys (renditions count as their original).</li>
+ *   <li>List each backend under media.gc.prefixes; objects whose original is unmarked and older
+ *       than the grace period become candidates.</li>
+ *   <li>Re-mark: stream the references again and drop candidates attached during the listing.</li>
+ *   <li>Sweep in batches of 1000: claim the originals in media_objects (skipping any an upload
+ *       deduplicated against within the grace period), then batch-delete them with their renditions.</li>
+ * </ol>
+ *
+ * <p>The grace period must exceed how long a client may hold an uploaded URL before attaching it.
+ * In dry-run mode (the default) orphans are only counted. Progress is exported as media.gc.* metrics.</p>
+ */
+@Slf4j
+@Service
+public class OrphanMediaCollector {
+
+    /** DeleteObjects accepts at most 1000 keys per request */
+    private static final int BATCH_SIZE = 1000;
+
+    private final MediaStorage storage;
+    private final LocalMediaStorage localStorage;
+    private final MediaObjectRegistry mediaObjectRegistry;
+    private final MediaReferenceScanner referenceScanner;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${media.gc.enabled:false}")
+    private boolean scheduledEnabled;
+
+    @Value("${media.gc.dry-run:true}")
+    private boolean defaultDryRun;
+
+    @Value("${media.gc.grace-period-hours:72}")
+    private long gracePeriodHours;
+
+    @Value("${media.gc.prefixes:posts/,avatars/,stores/,backgrounds/}")
+    private List<String> prefixes;
+
+    @Value("${media.gc.max-deletes-per-run:100000}")
+    private int maxDeletesPerRun;
+
+    private final AtomicReference<Sweep> running = new AtomicReference<>();
+    private final AtomicReference<OrphanSweepResponse> latest = new AtomicReference<>();
+    private final AtomicLong referencedKeysGauge = new AtomicLong();
+
+    public OrphanMediaCollector(MediaStorage storage, LocalMediaStorage localStorage,
+                                MediaObjectRegistry mediaObjectRegistry, MediaReferenceScanner referenceScanner,
+                                MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.localStorage = localStorage;
+        this.mediaObjectRegistry = mediaObjectRegistry;
+        this.referenceScanner = referenceScanner;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("media.gc.referenced.keys", referencedKeysGauge);
+    }
+
+    /**
+     * Nightly sweep, only when media.gc.enabled is set.
+     */
+    @Scheduled(cron = "${media.gc.cron:0 30 4 * * *}")
+    public void scheduledSweep() {
+        if (!scheduledEnabled) {
+            return;
+        }
+        try {
+            start(null);
+        } catch (BusinessRuleException e) {
+            log.info("Skipping scheduled orphan media sweep: previous sweep still running");
+        }
+    }
+
+    /**
+     * Start a sweep on a background thread.
+     * @param dryRun null for media.gc.dry-run
+     */
+    public synchronized OrphanSweepResponse start(Boolean dryRun) {
+        if (running.get() != null) {
+            throw new BusinessRuleException(
+                "An orphan media sweep is already running",
+                "توجد عملية تنظيف للوسائط قيد التشغيل بالفعل"
+            );
+        }
+
+        Sweep sweep = new Sweep(dryRun != null ? dryRun : defaultDryRun, LocalDateTime.now());
+        running.set(sweep);
+        Thread.ofPlatform().name("media-gc").daemon().start(() -> run(sweep));
+        return sweep.toResponse("RUNNING", null);
+    }
+
+    /**
+     * Progress of the running sweep, else the result of the last one.
+     */
+    public OrphanSweepResponse getLatest() {
+        Sweep sweep = running.get();
+        return sweep != null ? sweep.toResponse("RUNNING", null) : latest.get();
+    }
+
+    private void run(Sweep sweep) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "COMPLETED";
+        try {
+            collect(sweep);
+        } catch (Exception e) {
+            log.error("Orphan media sweep failed", e);
+            status = "FAILED";
+        } finally {
+            sample.stop(meterRegistry.timer("media.gc.duration", "dry_run", String.valueOf(sweep.dryRun),
+                    "status", status.toLowerCase()));
+            latest.set(sweep.toResponse(status, LocalDateTime.now()));
+            running.set(null);
+            log.info("Orphan media sweep {} (dryRun={}): scanned={}, orphans={} ({} bytes), deleted={}, failed={}, deferred={}",
+                    status, sweep.dryRun, sweep.scanned, sweep.orphans, sweep.orphanBytes, sweep.deleted,
+                    sweep.failed, sweep.deferred);
+        }
+    }
+
+    private void collect(Sweep sweep) {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(gracePeriodHours));
+        LocalDateTime cutoffTime = LocalDateTime.now().minusHours(gracePeriodHours);
+
+        KeyHashSet referenced = new KeyHashSet();
+        referenceScanner.scan(url -> originalKeyFor(url).ifPresent(referenced::add));
+        sweep.referencedKeys = referenced.size();
+        referencedKeysGauge.set(referenced.size());
+        log.info("Orphan media sweep marked {} referenced original(s)", referenced.size());
+
+        AtomicLong candidateCount = new AtomicLong();
+        for (MediaStorage backend : backends()) {
+            // Candidates grouped by original, so an original and its renditions are deleted together
+            Map<String, List<ListedObject>> candidates = new ConcurrentHashMap<>();
+            AtomicLong scanned = new AtomicLong();
+            for (String prefix : prefixes) {
+                backend.list(prefix, object -> {
+                    scanned.incrementAndGet();
+                    String original = ImageRenditions.originalOf(object.key());
+                    if (referenced.contains(original) || !object.lastModified().isBefore(cutoff)) {
+                        return;
+                    }
+                    if (candidateCount.get() >= maxDeletesPerRun) {
+                        sweep.deferred++;
+                        return;
+                    }
+                    candidateCount.incrementAndGet();
+                    candidates.computeIfAbsent(original, ignored -> new ArrayList<>()).add(object);
+                }).join();
+            }
+            sweep.scanned += scanned.get();
+            counter("media.gc.objects.scanned", backend, sweep).increment(scanned.get());
+
+            if (!candidates.isEmpty()) {
+                referenceScanner.scan(url -> originalKeyFor(url).ifPresent(candidates::remove));
+            }
+            sweepCandidates(backend, candidates, cutoffTime, sweep);
+        }
+    }
+
+    private void sweepCandidates(MediaStorage backend, Map<String, List<ListedObject>> candidates,
+                                 LocalDateTime cutoff, Sweep sweep) {
+        List<String> originals = new ArrayList<>(candidates.keySet());
+        int from = 0;
+        while (from < originals.size()) {
+            // Fill a batch up to 1000 keys without splitting an original from its renditions
+            List<String> batch = new ArrayList<>();
+            int keyCount = 0;
+            while (from < originals.size()
+                    && (batch.isEmpty() || keyCount + candidates.get(originals.get(from)).size() <= BATCH_SIZE)) {
+                keyCount += candidates.get(originals.get(from)).size();
+                batch.add(originals.get(from++));
+            }
+
+            Set<String> claimed = sweep.dryRun
+                    ? new HashSet<>(batch)
+                    : mediaObjectRegistry.claimUntouched(batch, cutoff);
+            List<ListedObject> objects = claimed.stream()
+                    .flatMap(original -> candidates.get(original).stream())
+                    .toList();
+            long bytes = objects.stream().mapToLong(ListedObject::size).sum();
+            sweep.orphans += objects.size();
+            sweep.orphanBytes += bytes;
+            counter("media.gc.orphans.found", backend, sweep).increment(objects.size());
+            if (sweep.dryRun || objects.isEmpty()) {
+                objects.forEach(object -> log.debug("Orphaned media (dry run): {}", object.key()));
+                continue;
+            }
+
+            Map<String, String> failed = backend.batchDelete(objects.stream().map(ListedObject::key).toList()).join();
+            long deletedBytes = objects.stream()
+                    .filter(object -> !failed.containsKey(object.key()))
+                    .mapToLong(ListedObject::size)
+                    .sum();
+            sweep.deleted += objects.size() - failed.size();
+            sweep.failed += failed.size();
+            counter("media.gc.orphans.deleted", backend, sweep).increment(objects.size() - failed.size());
+            counter("media.gc.orphans.deleted.bytes", backend, sweep).increment(deletedBytes);
+            counter("media.gc.delete.failures", backend, sweep).increment(failed.size());
+            failed.forEach((key, error) -> log.warn("Failed to delete orphaned media {}: {}", key, error));
+        }
+    }
+
+    /**
+     * Storage key of the original behind a referenced URL, in whichever backend serves it.
+     */
+    private Optional<String> originalKeyFor(String url) {
+        return Stream.of(storage, localStorage)
+                .map(backend -> backend.keyForUrl(url))
+                .flatMap(Optional::stream)
+                .findFirst()
+                .map(ImageRenditions::originalOf);
+    }
+
+    private List<MediaStorage> backends() {
+        return storage == localStorage ? List.of(storage) : List.of(storage, localStorage);
+    }
+
+    private Counter counter(String name, MediaStorage backend, Sweep sweep) {
+        return meterRegistry.counter(name, Tags.of("provider", backend.provider().name().toLowerCase(),
+                "dry_run", String.valueOf(sweep.dryRun)));
+    }
+
+    /**
+     * Totals of one sweep. Written by one thread at a time (the sweep thread, or a backend thread
+     * while listing), read by progress requests.
+     */
+    private static final class Sweep {
+        private final boolean dryRun;
+        private final LocalDateTime startedAt;
+        private volatile int referencedKeys;
+        private volatile long scanned;
+        private volatile long orphans;
+        private volatile long orphanBytes;
+        private volatile long deleted;
+        private volatile long failed;
+        private volatile long deferred;
+
+        private Sweep(boolean dryRun, LocalDateTime startedAt) {
+            this.dryRun = dryRun;
+            this.startedAt = startedAt;
+        }
+
+        private OrphanSweepResponse toResponse(String status, LocalDateTime finishedAt) {
+            return OrphanSweepResponse.builder()
+                    .status(status)
+                    .dryRun(dryRun)
+                    .referencedKeys(referencedKeys)
+                    .scanned(scanned)
+                    .orphans(orphans)
+                    .orphanBytes(orphanBytes)
+                    .deleted(deleted)
+                    .failed(failed)
+                    .deferred(deferred)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for the orphan media collector.
+ * POST /api/v1/admin/media/orphans starts a sweep in the background; pass dryRun=true to only
+ * report what would be deleted (defaults to media.gc.dry-run).
+ */
+@RestController
+@RequestMapping("/admin/media/orphans")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Admin - Media", description = "Admin media maintenance endpoints")
+public class OrphanMediaController {
+
+    private final OrphanMediaCollector collector;
+
+    @PostMapping
+    @Operation(summary = "Start an orphan media sweep")
+    public ResponseEntity<OrphanSweepResponse> start(@RequestParam(required = false) Boolean dryRun) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(collector.start(dryRun));
+    }
+
+    @GetMapping
+    @Operation(summary = "Get the result of the latest orphan media sweep")
+    public ResponseEntity<OrphanSweepResponse> getLatest() {
+        OrphanSweepResponse latest = collector.getLatest();
+        return latest != null ? ResponseEntity.ok(latest) : ResponseEntity.noContent().build();
+    }
+}
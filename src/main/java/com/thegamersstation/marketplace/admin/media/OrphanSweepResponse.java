@@ -0,0 +1,31 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrphanSweepResponse {
+    /** RUNNING, COMPLETED or FAILED */
+    private String status;
+    /** Orphans were only counted, not deleted */
+    private Boolean dryRun;
+    /** Distinct originals referenced from the database */
+    private Integer referencedKeys;
+    private Long scanned;
+    /** Unreferenced objects older than the grace period */
+    private Long orphans;
+    private Long orphanBytes;
+    private Long deleted;
+    private Long failed;
+    /** Orphans left for the next run because max-deletes-per-run was reached */
+    private Long deferred;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
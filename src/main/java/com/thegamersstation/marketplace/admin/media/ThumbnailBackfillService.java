@@ -0,0 +1,255 @@
+package com.thegamersstation.marketplace.admin.media;
+
+import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
+import com.thegamersstation.marketplace.media.ImageRenditions;
+import com.thegamersstation.marketplace.media.MediaService;
+import com.thegamersstation.marketplace.post.PostImage;
+import com.thegamersstation.marketplace.post.PostImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background job that generates renditions for post images stored before they existed.
+ *
+ * <p>Scans post_images with keyset paging, processes each page on a bounded worker pool,
+ * and persists a checkpoint after every page, so a cancelled or interrupted job resumes
+ * where it stopped. Storage traffic is paced by a simple images-per-second limit.</p>
+ *
+ * <p>Only one job runs across all instances: starting one locks the latest job row, and a
+ * RUNNING job counts as live until it has gone {@code stale-after-minutes} without a checkpoint.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailBackfillService {
+
+    private final MediaBackfillJobRepository jobRepository;
+    private final PostImageRepository postImageRepository;
+    private final MediaService mediaService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${media.backfill.page-size:200}")
+    private int pageSize;
+
+    @Value("${media.backfill.parallelism:4}")
+    private int parallelism;
+
+    @Value("${media.backfill.max-images-per-second:10}")
+    private double maxImagesPerSecond;
+
+    @Value("${media.backfill.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    private final AtomicReference<RunningJob> running = new AtomicReference<>();
+    private final Object rateLock = new Object();
+    private long nextPermitNanos = 0;
+
+    /**
+     * Start a backfill, resuming the latest unfinished job unless {@code restart} is set.
+     */
+    public synchronized BackfillJobResponse start(boolean restart) {
+        if (running.get() != null) {
+            throw new BusinessRuleException(
+                "A backfill job is already running",
+                "توجد عملية معالجة صور قيد التشغيل بالفعل"
+            );
+        }
+
+        MediaBackfillJob job = new TransactionTemplate(transactionManager).execute(status -> claimJob(restart));
+
+        RunningJob runningJob = new RunningJob(job.getId(),
+                new AtomicLong(job.getLastImageId()),
+                new AtomicInteger(job.getProcessedCount()),
+                new AtomicInteger(job.getSkippedCount()),
+                new AtomicInteger(job.getFailedCount()),
+                new AtomicBoolean(false));
+        running.set(runningJob);
+
+        log.info("Starting rendition backfill job {} after image id {}", job.getId(), job.getLastImageId());
+        Thread.ofPlatform().name("media-backfill-" + job.getId()).daemon().start(() -> run(runningJob));
+        return toResponse(job, runningJob);
+    }
+
+    /**
+     * Mark the job to run as RUNNING, unless another instance is running one.
+     */
+    private MediaBackfillJob claimJob(boolean restart) {
+        Optional<MediaBackfillJob> latest = jobRepository.findTopByOrderByIdDesc();
+        if (latest.filter(this::isRunningElsewhere).isPresent()) {
+            throw new BusinessRuleException(
+                "A backfill job is already running",
+                "توجد عملية معالجة صور قيد التشغيل بالفعل"
+            );
+        }
+        MediaBackfillJob job = latest
+                .filter(previous -> !restart && previous.getStatus() != MediaBackfillJob.Status.COMPLETED)
+                .orElseGet(() -> MediaBackfillJob.builder().build());
+        job.setStatus(MediaBackfillJob.Status.RUNNING);
+        job.setFinishedAt(null);
+        return jobRepository.save(job);
+    }
+
+    /**
+     * RUNNING and checkpointed recently, so still live on some instance.
+     */
+    private boolean isRunningElsewhere(MediaBackfillJob job) {
+        return job.getStatus() == MediaBackfillJob.Status.RUNNING
+                && job.getUpdatedAt() != null
+                && job.getUpdatedAt().isAfter(LocalDateTime.now().minusMinutes(staleAfterMinutes));
+    }
+
+    /**
+     * Request cancellation; the current page finishes and is checkpointed first.
+     */
+    public BackfillJobResponse cancel() {
+        RunningJob runningJob = running.get();
+        if (runningJob == null) {
+            throw new BusinessRuleException(
+                "No backfill job is running",
+                "لا توجد عملية معالجة صور قيد التشغيل"
+            );
+        }
+        runningJob.cancelled().set(true);
+        return getProgress();
+    }
+
+    public BackfillJobResponse getProgress() {
+        RunningJob runningJob = running.get();
+        return jobRepository.findFirstByOrderByIdDesc()
+                .map(job -> toResponse(job, runningJob != null && runningJob.jobId().equals(job.getId()) ? runningJob : null))
+                .orElse(null);
+    }
+
+    private void run(RunningJob job) {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("media-backfill-worker-", 0).daemon().factory());
+        MediaBackfillJob.Status outcome = MediaBackfillJob.Status.COMPLETED;
+        try {
+            while (!job.cancelled().get()) {
+                List<PostImage> page = postImageRepository.findMissingRenditionsAfter(
+                        job.lastImageId().get(), PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                // Rows sharing a URL are updated together, so each URL is processed once per page
+                List<Future<?>> tasks = page.stream()
+                        .map(PostImage::getUrl)
+                        .distinct()
+                        .<Future<?>>map(url -> workers.submit(() -> processImage(url, job)))
+                        .toList();
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+
+                job.lastImageId().set(page.get(page.size() - 1).getId());
+                checkpoint(job, MediaBackfillJob.Status.RUNNING);
+            }
+            if (job.cancelled().get()) {
+                outcome = MediaBackfillJob.Status.CANCELLED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = MediaBackfillJob.Status.CANCELLED;
+        } catch (Exception e) {
+            log.error("Rendition backfill job {} failed", job.jobId(), e);
+            outcome = MediaBackfillJob.Status.FAILED;
+        } finally {
+            workers.shutdownNow();
+            checkpoint(job, outcome);
+            running.set(null);
+            log.info("Rendition backfill job {} {}: processed={}, skipped={}, failed={}", job.jobId(), outcome,
+                    job.processed().get(), job.skipped().get(), job.failed().get());
+        }
+    }
+
+    /**
+     * Runs to completion even after a cancel, so the page checkpoint never skips unprocessed images.
+     */
+    private void processImage(String url, RunningJob job) {
+        if (!mediaService.isStoredMedia(url)) {
+            log.debug("Skipping image outside configured storage: {}", url);
+            job.skipped().incrementAndGet();
+            return;
+        }
+
+        try {
+            awaitRatePermit();
+            MediaService.StoredRenditions stored = mediaService.generateRenditionsForStoredImage(url);
+            postImageRepository.updatePendingRenditions(url, mediaService.deriveThumbnailUrl(url),
+                    ImageRenditions.formatWidths(stored.widths()), stored.placeholder());
+            job.processed().incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            job.failed().incrementAndGet();
+            log.error("Failed to backfill renditions for {}: {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Space image starts evenly at maxImagesPerSecond across all workers.
+     */
+    private void awaitRatePermit() throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxImagesPerSecond);
+        long waitNanos;
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            long permitAt = Math.max(now, nextPermitNanos);
+            nextPermitNanos = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void checkpoint(RunningJob running, MediaBackfillJob.Status status) {
+        jobRepository.findById(running.jobId()).ifPresent(job -> {
+            job.setStatus(status);
+            job.setLastImageId(running.lastImageId().get());
+            job.setProcessedCount(running.processed().get());
+            job.setSkippedCount(running.skipped().get());
+            job.setFailedCount(running.failed().get());
+            if (status != MediaBackfillJob.Status.RUNNING) {
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            jobRepository.save(job);
+        });
+    }
+
+    private BackfillJobResponse toResponse(MediaBackfillJob job, RunningJob runningJob) {
+        String status = job.getStatus().name();
+        if (runningJob == null && job.getStatus() == MediaBackfillJob.Status.RUNNING && !isRunningElsewhere(job)) {
+            status = "INTERRUPTED";
+        }
+        return BackfillJobResponse.builder()
+                .jobId(job.getId())
+                .status(status)
+                .lastImageId(runningJob != null ? runningJob.lastImageId().get() : job.getLastImageId())
+                .processed(runningJob != null ? runningJob.processed().get() : job.getProcessedCount())
+                .skipped(runningJob != null ? runningJob.skipped().get() : job.getSkippedCount())
+                .failed(runningJob != null ? runningJob.failed().get() : job.getFailedCount())
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private record RunningJob(Long jobId, AtomicLong lastImageId, AtomicInteger processed,
+                              AtomicInteger skipped, AtomicInteger failed, AtomicBoolean cancelled) {}
+}
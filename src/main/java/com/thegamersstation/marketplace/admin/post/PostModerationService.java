@@ -6,6 +6,9 @@ import com.thegamersstation.marketplace.post.PostMapper;
 import com.thegamersstation.marketplace.post.dto.PostDto;
 import com.thegamersstation.marketplace.common.dto.PageResponseDto;
 import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
+import com.thegamersstation.marketplace.media.MediaService;
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
+import com.thegamersstation.marketplace.post.PostImage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +21,8 @@ public class PostModerationService {
     
     private final PostRepository postRepository;
     private final PostMapper postMapper;
+    private final MediaService mediaService;
+    private final ConversationMembershipCache membershipCache;
     
     @Transactional(readOnly = true)
     public PageResponseDto<PostDto> getPendingPosts(Pageable pageable) {
@@ -75,6 +80,10 @@ public class PostModerationService {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         
+        // The images are deleted with the post; release their references in the same transaction
+        mediaService.detachImages(post.getImages().stream().map(PostImage::getUrl).toList());
         postRepository.delete(post);
+        // Its conversations are deleted by the database (ON DELETE CASCADE)
+        membershipCache.forgetPost(postId);
     }
 }
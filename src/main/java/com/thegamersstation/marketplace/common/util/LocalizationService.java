@@ -12,8 +12,13 @@ public class LocalizationService {
      * Get localized content based on current locale
      */
     public String get(String enValue, String arValue) {
-        Locale locale = LocaleContextHolder.getLocale();
-        
+        return get(enValue, arValue, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Get localized content for an explicit locale, e.g. one captured before switching threads
+     */
+    public String get(String enValue, String arValue, Locale locale) {
         if (locale != null && "ar".equals(locale.getLanguage())) {
             return arValue != null ? arValue : enValue;
         }
@@ -0,0 +1,60 @@
+package com.thegamersstation.marketplace.common.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Copy-on-write helpers for sorted {@code long[]} sets.
+ * Used by in-memory indexes that are read far more often than they change.
+ */
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+        // Utility class
+    }
+
+    public static long[] of(Collection<Long> values) {
+        if (values == null || values.isEmpty()) {
+            return EMPTY;
+        }
+        long[] array = values.stream().mapToLong(Long::longValue).distinct().toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    public static boolean contains(long[] array, long value) {
+        return Arrays.binarySearch(array, value) >= 0;
+    }
+
+    /**
+     * Return a copy with {@code value} inserted, or the same array if already present.
+     */
+    public static long[] insert(long[] array, long value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index >= 0) {
+            return array;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[array.length + 1];
+        System.arraycopy(array, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(array, insertAt, updated, insertAt + 1, array.length - insertAt);
+        return updated;
+    }
+
+    /**
+     * Return a copy with {@code value} removed, or the same array if absent.
+     */
+    public static long[] remove(long[] array, long value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index < 0) {
+            return array;
+        }
+        long[] updated = new long[array.length - 1];
+        System.arraycopy(array, 0, updated, 0, index);
+        System.arraycopy(array, index + 1, updated, index, array.length - index - 1);
+        return updated;
+    }
+}
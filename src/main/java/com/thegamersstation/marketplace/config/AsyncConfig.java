@@ -2,10 +2,12 @@ package com.thegamersstation.marketplace.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,4 +23,54 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Price drop emails, one batch of recipients per task. Separate from emailTaskExecutor so a
+     * popular post's fan-out can't fill the queue transactional mails rely on; when the queue is
+     * full the dispatching thread sends the batch itself, which slows the fan-out instead of
+     * dropping batches. Queued batches are still sent on shutdown.
+     */
+    @Bean(name = "priceDropEmailExecutor")
+    public ThreadPoolTaskExecutor priceDropEmailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("price-drop-mail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * CPU-bound image work (decode, resize, encode). Sized to the cores so thumbnailing
+     * can't starve request threads; when the queue is full the submitting thread does the
+     * work itself, which throttles uploads instead of dropping them.
+     */
+    @Bean(name = "mediaProcessingExecutor")
+    public ThreadPoolTaskExecutor mediaProcessingExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("media-cpu-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Blocking media I/O (staging uploads, local file storage, DB work after S3 callbacks),
+     * one virtual thread per task. S3 transfers themselves are non-blocking and run on the
+     * async client's event loop; concurrency is bounded by MediaService's upload permits.
+     */
+    @Bean(name = "mediaIoExecutor")
+    public SimpleAsyncTaskExecutor mediaIoExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("media-io-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
@@ -0,0 +1,96 @@
+package com.thegamersstation.marketplace.config;
+
+import com.thegamersstation.marketplace.media.storage.InMemoryMediaStorage;
+import com.thegamersstation.marketplace.media.storage.LocalMediaStorage;
+import com.thegamersstation.marketplace.media.storage.MediaStorage;
+import com.thegamersstation.marketplace.media.storage.S3MediaStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskExecutor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class MediaStorageConfig {
+
+    /**
+     * Local filesystem storage. Always available: it serves files uploaded in local mode
+     * and is the fallback when the primary backend fails.
+     */
+    @Bean
+    public LocalMediaStorage localMediaStorage(
+            @Value("${media.storage.local.upload-dir:uploads}") String uploadDir,
+            @Value("${media.storage.local.base-url:http://localhost:8080/api/v1/uploads}") String baseUrl,
+            @Qualifier("mediaIoExecutor") TaskExecutor ioExecutor
+    ) {
+        return new LocalMediaStorage(uploadDir, baseUrl, ioExecutor);
+    }
+
+    /**
+     * Storage new uploads go to, selected by media.storage.provider (s3, local or memory).
+     * S3 falls back to local storage when no credentials are configured.
+     */
+    @Bean
+    @Primary
+    public MediaStorage mediaStorage(
+            @Value("${media.storage.provider:local}") String provider,
+            LocalMediaStorage localMediaStorage,
+            @Value("${aws.access-key-id:}") String awsAccessKey,
+            @Value("${aws.secret-access-key:}") String awsSecretKey,
+            @Value("${aws.s3.region:us-east-1}") String region,
+            @Value("${aws.s3.bucket-name:}") String bucketName,
+            @Value("${aws.cloudfront.domain:}") String cloudFrontDomain,
+            @Value("${media.storage.s3.max-concurrency:128}") int maxConcurrency,
+            @Value("${media.storage.s3.max-pending-acquires:2000}") int maxPendingAcquires,
+            @Value("${media.storage.s3.connection-acquire-timeout-seconds:10}") long acquireTimeoutSeconds,
+            @Value("${media.storage.s3.connection-timeout-seconds:2}") long connectionTimeoutSeconds,
+            @Value("${media.storage.s3.read-timeout-seconds:30}") long readTimeoutSeconds,
+            @Value("${media.storage.s3.write-timeout-seconds:30}") long writeTimeoutSeconds,
+            @Value("${media.storage.s3.connection-max-idle-seconds:60}") long maxIdleSeconds
+    ) {
+        if ("memory".equalsIgnoreCase(provider)) {
+            log.warn("Using in-memory media storage - uploads are lost on restart");
+            return new InMemoryMediaStorage("memory://media");
+        }
+        if (!"s3".equalsIgnoreCase(provider)) {
+            return localMediaStorage;
+        }
+        if (awsAccessKey.isBlank() || awsSecretKey.isBlank()) {
+            log.warn("AWS S3 not configured - using local storage");
+            return localMediaStorage;
+        }
+
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(awsAccessKey, awsSecretKey));
+        S3AsyncClient s3Client = S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .maxPendingConnectionAcquires(maxPendingAcquires)
+                        .connectionAcquisitionTimeout(Duration.ofSeconds(acquireTimeoutSeconds))
+                        .connectionTimeout(Duration.ofSeconds(connectionTimeoutSeconds))
+                        .readTimeout(Duration.ofSeconds(readTimeoutSeconds))
+                        .writeTimeout(Duration.ofSeconds(writeTimeoutSeconds))
+                        .connectionMaxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                        .tcpKeepAlive(true))
+                .build();
+        log.info("AWS S3 async client initialized for region: {} (max {} connections)", region, maxConcurrency);
+        S3Presigner presigner = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .build();
+        return new S3MediaStorage(s3Client, presigner, bucketName, region, cloudFrontDomain);
+    }
+}
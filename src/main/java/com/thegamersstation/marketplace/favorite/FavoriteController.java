@@ -0,0 +1,53 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.thegamersstation.marketplace.common.dto.PageResponseDto;
+import com.thegamersstation.marketplace.favorite.dto.FavoriteStatusDto;
+import com.thegamersstation.marketplace.post.dto.PostDto;
+import com.thegamersstation.marketplace.security.SecurityUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Favorites", description = "Post favorites (watchlist) endpoints")
+@SecurityRequirement(name = "Bearer Authentication")
+public class FavoriteController {
+
+    private final FavoriteService favoriteService;
+
+    @PostMapping("/posts/{postId}/favorite")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Add a post to my favorites")
+    public ResponseEntity<FavoriteStatusDto> addFavorite(@PathVariable Long postId) {
+        Long userId = SecurityUtil.getCurrentUserId();
+        return ResponseEntity.ok(favoriteService.addFavorite(postId, userId));
+    }
+
+    @DeleteMapping("/posts/{postId}/favorite")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Remove a post from my favorites")
+    public ResponseEntity<FavoriteStatusDto> removeFavorite(@PathVariable Long postId) {
+        Long userId = SecurityUtil.getCurrentUserId();
+        return ResponseEntity.ok(favoriteService.removeFavorite(postId, userId));
+    }
+
+    @GetMapping("/users/me/favorites")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get my favorite posts", description = "Most recently favorited first")
+    public ResponseEntity<PageResponseDto<PostDto>> getMyFavorites(
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "10") int size
+    ) {
+        int safeSize = Math.min(Math.max(size, 1), 50);
+        Long userId = SecurityUtil.getCurrentUserId();
+        Pageable pageable = PageRequest.of(page, safeSize);
+        return ResponseEntity.ok(favoriteService.getFavorites(userId, pageable));
+    }
+}
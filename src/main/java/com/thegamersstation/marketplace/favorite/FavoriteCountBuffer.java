@@ -0,0 +1,99 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.thegamersstation.marketplace.post.PostRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffers favorite counter changes per post and writes them to {@code posts.favorite_count}
+ * in batches, so a favorite toggle never contends on the post row.
+ *
+ * <p>Readers add {@link #pendingDelta(Long)} to the persisted value to see an up-to-date count.
+ * Deltas are only subtracted once the flush has committed, so a failed flush loses nothing.</p>
+ */
+@Slf4j
+@Component
+public class FavoriteCountBuffer {
+
+    private static final int MAX_IDS_PER_UPDATE = 1000;
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    public FavoriteCountBuffer(PostRepository postRepository, PlatformTransactionManager transactionManager) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void increment(Long postId) {
+        apply(postId, 1);
+    }
+
+    public void decrement(Long postId) {
+        apply(postId, -1);
+    }
+
+    /**
+     * Counter change for a post that has not been flushed to the database yet.
+     */
+    public int pendingDelta(Long postId) {
+        return pending.getOrDefault(postId, 0);
+    }
+
+    /**
+     * Flush pending deltas, grouping posts by delta so each group is a single UPDATE.
+     * Also runs on shutdown so buffered counts are not lost on a clean restart.
+     */
+    @Scheduled(fixedDelayString = "${favorites.count-flush-interval-ms:5000}")
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, List<Long>> postIdsByDelta = new HashMap<>();
+        pending.forEach((postId, delta) -> postIdsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(postId));
+
+        Integer updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Map.Entry<Integer, List<Long>> entry : postIdsByDelta.entrySet()) {
+                    List<Long> postIds = entry.getValue();
+                    for (int from = 0; from < postIds.size(); from += MAX_IDS_PER_UPDATE) {
+                        List<Long> chunk = postIds.subList(from, Math.min(from + MAX_IDS_PER_UPDATE, postIds.size()));
+                        rows += postRepository.incrementFavoriteCount(chunk, entry.getKey());
+                    }
+                }
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            // Nothing was subtracted yet, so the next run retries every delta
+            log.error("Failed to flush favorite counters, will retry: {}", e.getMessage());
+            throw e;
+        }
+        // Committed: subtract what was written, keeping changes that arrived meanwhile
+        postIdsByDelta.forEach((delta, postIds) -> postIds.forEach(postId -> apply(postId, -delta)));
+        log.debug("Flushed favorite counters for {} posts", updated);
+    }
+
+    private void apply(Long postId, int delta) {
+        pending.merge(postId, delta, (current, change) -> {
+            int sum = current + change;
+            return sum == 0 ? null : sum;
+        });
+    }
+}
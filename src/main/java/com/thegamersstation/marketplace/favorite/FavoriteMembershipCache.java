@@ -0,0 +1,63 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thegamersstation.marketplace.common.util.SortedLongArrays;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory index of the post IDs each user has favorited.
+ *
+ * <p>Each user maps to a sorted {@code long[]} so a page of cards can be checked with
+ * one binary search per card and no boxing. The array is loaded with a single query on
+ * first access and then kept in sync copy-on-write by {@link FavoriteService}.</p>
+ *
+ * <p>The cache is per instance, so favorites changed through another instance only show up once
+ * the entry expires. Entries expire a fixed time after loading, not after the last access, which
+ * bounds that staleness; the cache only serves reads, writes always go to the database.</p>
+ */
+@Component
+public class FavoriteMembershipCache {
+
+    private final Cache<Long, long[]> favoritesByUser;
+    private final PostFavoriteRepository postFavoriteRepository;
+
+    public FavoriteMembershipCache(
+            PostFavoriteRepository postFavoriteRepository,
+            @Value("${favorites.membership-cache.max-users:50000}") long maxUsers,
+            @Value("${favorites.membership-cache.expire-after-write-seconds:60}") long expireSeconds
+    ) {
+        this.postFavoriteRepository = postFavoriteRepository;
+        this.favoritesByUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .build();
+    }
+
+    /**
+     * Sorted post IDs favorited by the user, loading them on a cache miss.
+     */
+    public long[] getFavoritePostIds(Long userId) {
+        return favoritesByUser.get(userId,
+                id -> SortedLongArrays.of(postFavoriteRepository.findPostIdsByUserId(id)));
+    }
+
+    public boolean contains(Long userId, Long postId) {
+        return SortedLongArrays.contains(getFavoritePostIds(userId), postId);
+    }
+
+    /**
+     * Record a new favorite for a user whose set is already cached.
+     * Users that are not cached are left alone; their next read loads fresh state.
+     */
+    public void add(Long userId, Long postId) {
+        favoritesByUser.asMap().computeIfPresent(userId, (id, ids) -> SortedLongArrays.insert(ids, postId));
+    }
+
+    public void remove(Long userId, Long postId) {
+        favoritesByUser.asMap().computeIfPresent(userId, (id, ids) -> SortedLongArrays.remove(ids, postId));
+    }
+}
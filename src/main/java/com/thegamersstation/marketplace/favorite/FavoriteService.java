@@ -0,0 +1,129 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.thegamersstation.marketplace.common.dto.PageResponseDto;
+import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
+import com.thegamersstation.marketplace.common.util.SortedLongArrays;
+import com.thegamersstation.marketplace.favorite.dto.FavoriteStatusDto;
+import com.thegamersstation.marketplace.post.Post;
+import com.thegamersstation.marketplace.post.PostMapper;
+import com.thegamersstation.marketplace.post.PostRepository;
+import com.thegamersstation.marketplace.post.dto.PostDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteService {
+
+    private final PostFavoriteRepository postFavoriteRepository;
+    private final PostRepository postRepository;
+    private final PostMapper postMapper;
+    private final FavoriteMembershipCache membershipCache;
+    private final FavoriteCountBuffer countBuffer;
+
+    @Transactional
+    public FavoriteStatusDto addFavorite(Long postId, Long userId) {
+        Post post = postRepository.findByIdAndNotDeleted(postId)
+            .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+
+        // Always hits the database: the membership cache is per instance and may be stale.
+        // A duplicate (concurrent double-tap, favorited elsewhere) inserts nothing instead of failing
+        int added = postFavoriteRepository.insertIfAbsent(userId, postId);
+        afterCommit(() -> {
+            membershipCache.add(userId, postId);
+            if (added > 0) {
+                countBuffer.increment(postId);
+            }
+        });
+        if (added > 0) {
+            log.info("User {} favorited post {}", userId, postId);
+        }
+
+        return FavoriteStatusDto.builder()
+            .postId(postId)
+            .favorited(true)
+            .favoriteCount(currentCount(postId, post.getFavoriteCount()) + added)
+            .build();
+    }
+
+    @Transactional
+    public FavoriteStatusDto removeFavorite(Long postId, Long userId) {
+        Post post = postRepository.findByIdAndNotDeleted(postId)
+            .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+
+        int removed = postFavoriteRepository.deleteByUserIdAndPostId(userId, postId);
+        afterCommit(() -> {
+            membershipCache.remove(userId, postId);
+            if (removed > 0) {
+                countBuffer.decrement(postId);
+            }
+        });
+        if (removed > 0) {
+            log.info("User {} removed favorite on post {}", userId, postId);
+        }
+
+        return FavoriteStatusDto.builder()
+            .postId(postId)
+            .favorited(false)
+            .favoriteCount(Math.max(0, currentCount(postId, post.getFavoriteCount()) - removed))
+            .build();
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponseDto<PostDto> getFavorites(Long userId, Pageable pageable) {
+        Page<Post> postsPage = postFavoriteRepository.findFavoritePostsByUserId(userId, pageable);
+        PageResponseDto<PostDto> response = PageResponseDto.of(postsPage.map(postMapper::toDto));
+        applyFavoriteState(response.getContent(), userId);
+        return response;
+    }
+
+    /**
+     * Fill in favoriteCount and favoritedByMe for a page of mapped posts.
+     * Counts come from the loaded entities plus unflushed deltas, and membership from the
+     * per-user cache, so a warm page costs no queries regardless of its size.
+     *
+     * @param posts         mapped posts whose favoriteCount holds the persisted counter
+     * @param currentUserId the viewer, or {@code null} for anonymous requests
+     */
+    public void applyFavoriteState(Collection<PostDto> posts, Long currentUserId) {
+        if (posts == null || posts.isEmpty()) {
+            return;
+        }
+
+        long[] favoritePostIds = currentUserId != null
+            ? membershipCache.getFavoritePostIds(currentUserId)
+            : null;
+
+        for (PostDto post : posts) {
+            post.setFavoriteCount(currentCount(post.getId(), post.getFavoriteCount()));
+            post.setFavoritedByMe(favoritePostIds != null
+                && SortedLongArrays.contains(favoritePostIds, post.getId()));
+        }
+    }
+
+    /**
+     * Caches and the count buffer only see committed changes: a rollback leaves them untouched,
+     * and a concurrent cache load cannot be overwritten with a row that never commits.
+     */
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private long currentCount(Long postId, long persistedCount) {
+        return Math.max(0, persistedCount + countBuffer.pendingDelta(postId));
+    }
+}
@@ -0,0 +1,51 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.thegamersstation.marketplace.post.Post;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PostFavoriteRepository extends JpaRepository<PostFavorite, Long> {
+
+    /**
+     * All post IDs favorited by a user, used to warm the membership cache in one query.
+     */
+    @Query("SELECT f.post.id FROM PostFavorite f WHERE f.user.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * All user IDs watching a post, used to fan out price drop notifications.
+     */
+    @Query("SELECT f.user.id FROM PostFavorite f WHERE f.post.id = :postId")
+    List<Long> findUserIdsByPostId(@Param("postId") Long postId);
+
+    /**
+     * Insert the favorite unless the pair already exists. IGNORE (rather than ON DUPLICATE KEY)
+     * keeps the row count unambiguous under Connector/J's found-rows default; callers check that
+     * the post exists first.
+     * @return 1 if a row was inserted, 0 if the user had already favorited the post
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO post_favorites (user_id, post_id, created_at) VALUES (:userId, :postId, NOW())",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    @Modifying
+    @Query("DELETE FROM PostFavorite f WHERE f.user.id = :userId AND f.post.id = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    @Query(value = "SELECT p FROM PostFavorite f JOIN f.post p " +
+           "LEFT JOIN FETCH p.owner LEFT JOIN FETCH p.category LEFT JOIN FETCH p.city " +
+           "WHERE f.user.id = :userId AND p.status IN ('ACTIVE', 'SOLD') " +
+           "ORDER BY f.createdAt DESC",
+           countQuery = "SELECT COUNT(f) FROM PostFavorite f " +
+           "WHERE f.user.id = :userId AND f.post.status IN ('ACTIVE', 'SOLD')")
+    Page<Post> findFavoritePostsByUserId(@Param("userId") Long userId, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.thegamersstation.marketplace.favorite.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Favorite state of a post for the current user")
+public class FavoriteStatusDto {
+
+    @Schema(description = "Post ID", example = "42")
+    private Long postId;
+
+    @Schema(description = "Whether the current user has favorited the post", example = "true")
+    private boolean favorited;
+
+    @Schema(description = "Number of users who favorited the post", example = "17")
+    private long favoriteCount;
+}
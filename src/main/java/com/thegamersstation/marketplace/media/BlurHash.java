@@ -0,0 +1,111 @@
+package com.thegamersstation.marketplace.media;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * BlurHash encoder (https://blurha.sh): a ~28 character string that clients decode into a
+ * blurred placeholder while the real image loads.
+ *
+ * <p>Encoding cost grows with the pixel count, so callers pass an already downscaled image
+ * (a few dozen pixels wide is plenty for a blur).</p>
+ */
+public final class BlurHash {
+
+    /** Horizontal and vertical components; 4x3 suits the mostly landscape listing photos */
+    public static final int X_COMPONENTS = 4;
+    public static final int Y_COMPONENTS = 3;
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    public static String encode(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        double[][] factors = new double[X_COMPONENTS * Y_COMPONENTS][];
+        for (int j = 0; j < Y_COMPONENTS; j++) {
+            for (int i = 0; i < X_COMPONENTS; i++) {
+                factors[j * X_COMPONENTS + i] = basisFactor(pixels, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        appendBase83(hash, (X_COMPONENTS - 1) + (Y_COMPONENTS - 1) * 9, 1);
+
+        double maximumValue;
+        if (factors.length > 1) {
+            double actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double component : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(component));
+                }
+            }
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            appendBase83(hash, quantisedMaximum, 1);
+        } else {
+            maximumValue = 1;
+            appendBase83(hash, 0, 1);
+        }
+
+        double[] dc = factors[0];
+        appendBase83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            appendBase83(hash, encodeAc(factors[k], maximumValue), 2);
+        }
+        return hash.toString();
+    }
+
+    private static double[] basisFactor(int[] pixels, int width, int height, int i, int j) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        double normalisation = (i == 0 && j == 0) ? 1 : 2;
+        for (int y = 0; y < height; y++) {
+            double basisY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = normalisation * Math.cos(Math.PI * i * x / width) * basisY;
+                int rgb = pixels[y * width + x];
+                r += basis * srgbToLinear((rgb >> 16) & 0xFF);
+                g += basis * srgbToLinear((rgb >> 8) & 0xFF);
+                b += basis * srgbToLinear(rgb & 0xFF);
+            }
+        }
+        double scale = 1.0 / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int encodeAc(double[] value, double maximumValue) {
+        int quantR = quantiseAc(value[0] / maximumValue);
+        int quantG = quantiseAc(value[1] / maximumValue);
+        int quantB = quantiseAc(value[2] / maximumValue);
+        return quantR * 19 * 19 + quantG * 19 + quantB;
+    }
+
+    private static int quantiseAc(double value) {
+        return (int) Math.max(0, Math.min(18, Math.floor(Math.signum(value) * Math.sqrt(Math.abs(value)) * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void appendBase83(StringBuilder hash, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            hash.append(BASE83.charAt(digit));
+        }
+    }
+}
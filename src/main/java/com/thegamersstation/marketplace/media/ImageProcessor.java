@@ -0,0 +1,272 @@
+package com.thegamersstation.marketplace.media;
+
+import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import com.thegamersstation.marketplace.media.codec.ImageEncoder;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * CPU side of the media pipeline: header checks, subsampled decoding, resizing, encoding and
+ * placeholders. Works on local files only and holds no storage or request state, so
+ * {@link MediaService} runs it on the processing executor and benchmarks (src/jmh) construct it directly.
+ */
+@Slf4j
+@Component
+public class ImageProcessor {
+
+    private static final float THUMBNAIL_QUALITY = 0.80f;
+
+    private static final int PLACEHOLDER_WIDTH = 32;
+
+    private final ImageCodecs codecs;
+
+    /**
+     * Rendition widths generated per upload; the thumbnail width is always included.
+     */
+    private final int[] renditionWidths;
+
+    /**
+     * Upper bound on decoded pixels (width x height), checked from the image header.
+     */
+    private final long maxPixels;
+
+    private final String tempDir;
+
+    public ImageProcessor(
+            ImageCodecs codecs,
+            @Value("${media.renditions.widths:200,400,800,1600}") int[] renditionWidths,
+            @Value("${media.max-pixels:50000000}") long maxPixels,
+            @Value("${media.upload.temp-dir:${java.io.tmpdir}}") String tempDir
+    ) {
+        this.codecs = codecs;
+        this.renditionWidths = renditionWidths;
+        this.maxPixels = maxPixels;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Generate the rendition set from a single (subsampled) decode of the source image.
+     * Widths are produced largest first, each one downscaled from the previous rendition
+     * (progressive downscaling), so no step shrinks by a large factor and the source
+     * is decoded only once. Widths at or above the source width are skipped, except the
+     * thumbnail, which is always produced. The BlurHash placeholder is computed from the
+     * smallest rendition, so it costs a tiny resize on top. The caller deletes the returned files.
+     */
+    public RenditionSet generateRenditions(Path source, String extension) throws IOException {
+        DecodedImage decoded = decodeSubsampled(source, sourceWidth -> renditionWidthsDescending().stream()
+                .filter(width -> width < sourceWidth || width == ImageRenditions.THUMBNAIL_WIDTH)
+                .findFirst()
+                .orElse(ImageRenditions.THUMBNAIL_WIDTH));
+        BufferedImage image = decoded.image();
+        ImageEncoder encoder = codecs.renditionEncoder(extension);
+
+        List<RenditionFile> renditions = new ArrayList<>();
+        try {
+            BufferedImage current = image;
+            for (int width : renditionWidthsDescending()) {
+                if (width >= decoded.sourceWidth() && width != ImageRenditions.THUMBNAIL_WIDTH) {
+                    continue;
+                }
+                if (width < current.getWidth()) {
+                    current = Thumbnails.of(current).width(width).asBufferedImage();
+                }
+                // A source narrower than the thumbnail is encoded at its own width; record that width
+                renditions.add(new RenditionFile(width, current.getWidth(), encoder.contentType(),
+                        encodeRendition(current, encoder, extension)));
+            }
+            return new RenditionSet(renditions, placeholderFor(current));
+        } catch (IOException | RuntimeException e) {
+            renditions.forEach(rendition -> deleteQuietly(rendition.file()));
+            throw e;
+        }
+    }
+
+    /**
+     * Decode the source and scale it down to the given width (never up), for on-demand renditions.
+     */
+    public void render(Path source, int width, ImageEncoder encoder, Path target) throws IOException {
+        BufferedImage image = decodeSubsampled(source, sourceWidth -> width).image();
+        if (width < image.getWidth()) {
+            image = Thumbnails.of(image).width(width).asBufferedImage();
+        }
+        writeImage(image, encoder, target);
+    }
+
+
+    /**
+     * Reject images whose declared dimensions exceed media.max-pixels (decompression bombs).
+     * Only the header is read. Formats without an ImageIO reader are left to the rendition pipeline.
+     */
+    public void validateDimensions(Path staged) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(staged.toFile())) {
+            ImageReader reader = openImageReader(input);
+            if (reader == null) {
+                return;
+            }
+            try {
+                checkPixelCount(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new BusinessRuleException(
+                "File content does not match a valid image format",
+                "محتوى الملف لا يطابق صيغة صورة صحيحة"
+            );
+        }
+    }
+
+    /**
+     * Configured rendition widths plus the thumbnail width, largest first.
+     */
+    public List<Integer> renditionWidthsDescending() {
+        return IntStream.concat(Arrays.stream(renditionWidths), IntStream.of(ImageRenditions.THUMBNAIL_WIDTH))
+                .filter(width -> width > 0)
+                .distinct()
+                .boxed()
+                .sorted(Comparator.reverseOrder())
+                .toList();
+    }
+
+    /**
+     * BlurHash of the image, from a copy downscaled to {@value #PLACEHOLDER_WIDTH}px wide.
+     * A failure only costs the placeholder, never the renditions.
+     */
+    private String placeholderFor(BufferedImage image) {
+        try {
+            BufferedImage small = image.getWidth() > PLACEHOLDER_WIDTH
+                    ? Thumbnails.of(image).width(PLACEHOLDER_WIDTH).asBufferedImage()
+                    : image;
+            return BlurHash.encode(small);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to compute image placeholder", e);
+            return null;
+        }
+    }
+
+    /**
+     * Decode the source with an {@link ImageReader}, subsampling rows and columns so the raster is
+     * only as large as the biggest requested width needs (kept at 2x or more of that width so the
+     * progressive downscale still has real pixels to filter). A 48MP photo rendered up to 1600px
+     * decodes at roughly a quarter of its linear size, i.e. ~1/16 of the full raster.
+     * The pixel count is checked from the header before any raster is allocated, and EXIF
+     * orientation is applied like Thumbnailator does for file sources. Only image 0 is read and the
+     * stream is seek-forward-only, so animated GIF/WebP sources cost one frame, not the whole animation.
+     */
+    private DecodedImage decodeSubsampled(Path source, IntUnaryOperator largestTargetForSourceWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            ImageReader reader = openImageReader(input);
+            if (reader == null) {
+                throw new IOException("Unsupported image format: " + source.getFileName());
+            }
+            try {
+                int rawWidth = reader.getWidth(0);
+                int rawHeight = reader.getHeight(0);
+                checkPixelCount(rawWidth, rawHeight);
+
+                // EXIF lives in the JPEG metadata tree; other readers reject that format name
+                Orientation orientation = "jpeg".equalsIgnoreCase(reader.getFormatName())
+                        ? ExifUtils.getExifOrientation(reader, 0)
+                        : null;
+                boolean rotated = orientation == Orientation.LEFT_TOP || orientation == Orientation.RIGHT_TOP
+                        || orientation == Orientation.RIGHT_BOTTOM || orientation == Orientation.LEFT_BOTTOM;
+                int sourceWidth = rotated ? rawHeight : rawWidth;
+
+                int largestTarget = largestTargetForSourceWidth.applyAsInt(sourceWidth);
+                int subsampling = Math.max(1, sourceWidth / (largestTarget * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                if (orientation != null && orientation != Orientation.TOP_LEFT) {
+                    image = ExifFilterUtils.getFilterForOrientation(orientation).apply(image);
+                }
+                return new DecodedImage(image, sourceWidth);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader openImageReader(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, true, true);
+        return reader;
+    }
+
+    private void checkPixelCount(int width, int height) {
+        if ((long) width * height > maxPixels) {
+            throw new BusinessRuleException(
+                String.format("Image dimensions %dx%d exceed the maximum of %d megapixels", width, height, maxPixels / 1_000_000),
+                String.format("أبعاد الصورة %dx%d تتجاوز الحد الأقصى وهو %d ميجابكسل", width, height, maxPixels / 1_000_000)
+            );
+        }
+    }
+
+    private Path encodeRendition(BufferedImage image, ImageEncoder encoder, String extension) throws IOException {
+        Path file = Files.createTempFile(Paths.get(tempDir), "rendition-", "." + extension);
+        try {
+            writeImage(image, encoder, file);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private static void writeImage(BufferedImage image, ImageEncoder encoder, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            encoder.encode(image, THUMBNAIL_QUALITY, out);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file: {}", path, e);
+        }
+    }
+
+    /**
+     * @param slot  configured width the file is named after (see {@link ImageRenditions#deriveUrl})
+     * @param width width actually encoded; smaller than the slot only for a thumbnail of a narrow source
+     */
+    public record RenditionFile(int slot, int width, String contentType, Path file) {}
+
+    /**
+     * Encoded rendition files (owned by the caller) and the BlurHash placeholder (may be null).
+     */
+    public record RenditionSet(List<RenditionFile> files, String placeholder) {}
+
+    private record DecodedImage(BufferedImage image, int sourceWidth) {}
+}
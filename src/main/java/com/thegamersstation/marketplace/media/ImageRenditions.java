@@ -0,0 +1,84 @@
+package com.thegamersstation.marketplace.media;
+
+import com.thegamersstation.marketplace.media.dto.ImageRenditionDto;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Naming convention for resized renditions stored next to an original image.
+ *
+ * <p>{@code posts/uuid.jpg} → {@code posts/uuid-w800.jpg}. The {@link #THUMBNAIL_WIDTH} rendition keeps
+ * the legacy {@code -thumb} suffix so existing thumbnail URLs stay valid. Works on URLs and storage keys alike.</p>
+ */
+public final class ImageRenditions {
+
+    public static final int THUMBNAIL_WIDTH = 400;
+
+    private static final Pattern RENDITION_SUFFIX = Pattern.compile("-(thumb|w\\d+)(\\.[^./]+)$");
+
+    private ImageRenditions() {
+    }
+
+    public static String deriveUrl(String original, int width) {
+        if (original == null || original.isBlank()) {
+            return original;
+        }
+        int dotIndex = original.lastIndexOf('.');
+        if (dotIndex <= 0) {
+            return original;
+        }
+        String suffix = width == THUMBNAIL_WIDTH ? "-thumb" : "-w" + width;
+        return original.substring(0, dotIndex) + suffix + original.substring(dotIndex);
+    }
+
+    /**
+     * Inverse of {@link #deriveUrl}: the original a rendition was derived from, or the input itself
+     * if it is not a rendition name. Original names (UUIDs, content hashes) never carry these suffixes.
+     */
+    public static String originalOf(String rendition) {
+        return RENDITION_SUFFIX.matcher(rendition).replaceFirst("$2");
+    }
+
+    /**
+     * Renditions for srcset, labelled with their encoded widths. The thumbnail is always stored under
+     * {@code -thumb}; for a source narrower than {@link #THUMBNAIL_WIDTH} it was encoded at the source
+     * width, so a set without THUMBNAIL_WIDTH has its thumbnail as the widest entry.
+     */
+    public static List<ImageRenditionDto> toDtos(String originalUrl, String widthsCsv) {
+        List<Integer> widths = parseWidths(widthsCsv);
+        if (widths.isEmpty()) {
+            return List.of();
+        }
+        int thumbnailWidth = widths.contains(THUMBNAIL_WIDTH) ? THUMBNAIL_WIDTH : widths.getLast();
+        return widths.stream()
+                .map(width -> new ImageRenditionDto(width,
+                        deriveUrl(originalUrl, width == thumbnailWidth ? THUMBNAIL_WIDTH : width)))
+                .toList();
+    }
+
+    /**
+     * Widths as stored in the database, e.g. "200,400,800".
+     */
+    public static String formatWidths(Collection<Integer> widths) {
+        if (widths == null || widths.isEmpty()) {
+            return null;
+        }
+        return widths.stream().sorted().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public static List<Integer> parseWidths(String widthsCsv) {
+        if (widthsCsv == null || widthsCsv.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(widthsCsv.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Integer::valueOf)
+                .sorted()
+                .toList();
+    }
+}
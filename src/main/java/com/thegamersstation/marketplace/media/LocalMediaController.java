@@ -0,0 +1,156 @@
+package com.thegamersstation.marketplace.media;
+
+import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import com.thegamersstation.marketplace.media.storage.LocalMediaStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Serves files from local media storage (self-hosted deployments without S3/CloudFront).
+ *
+ * <p>Keys are content-addressed and never overwritten with different bytes, so responses are
+ * cacheable for a year as immutable. Supports conditional requests (ETag/Last-Modified) and
+ * single byte ranges. The body is handed to Tomcat's sendfile when available, so the kernel
+ * copies the file to the socket; other containers get a {@link FileChannel#transferTo} copy.</p>
+ */
+@RestController
+@RequestMapping("/uploads")
+@RequiredArgsConstructor
+public class LocalMediaController {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalMediaStorage localStorage;
+
+    @RequestMapping(value = "/{*key}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(@PathVariable String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file = localStorage.findFile(key.startsWith("/") ? key.substring(1) : key)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found"));
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag/Last-Modified and answers 304 (or 412) from the conditional headers
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && rangeApplies(request, eTag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+                // Multiple ranges are answered with the full file, which RFC 9110 allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (ranges.size() == 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(contentTypeOf(file));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(count);
+        if (count == 0 || RequestMethod.HEAD.name().equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * Content type from the file signature, falling back to the extension. Renditions keep the
+     * original's extension in their key but may be encoded differently (e.g. WebP under ".jpg"),
+     * and nosniff stops browsers from correcting a wrong type themselves.
+     */
+    private static String contentTypeOf(Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(ImageCodecs.HEADER_LENGTH);
+        }
+        return ImageCodecs.detectContentType(header)
+                .orElseGet(() -> MediaTypeFactory.getMediaType(file.getFileName().toString())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                        .toString());
+    }
+
+    /**
+     * If-Range: serve the range only if the validator still matches (strong comparison), else the full file.
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package com.thegamersstation.marketplace.media;
 
+import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
+import com.thegamersstation.marketplace.common.util.LocalizationService;
+import com.thegamersstation.marketplace.media.dto.ConfirmDirectUploadRequest;
+import com.thegamersstation.marketplace.media.dto.DirectUploadRequest;
+import com.thegamersstation.marketplace.media.dto.DirectUploadResponseDto;
 import com.thegamersstation.marketplace.media.dto.ImageUploadResponseDto;
+import com.thegamersstation.marketplace.media.dto.MediaUploadStatusDto;
+import com.thegamersstation.marketplace.security.SecurityUtil;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 @Slf4j
 @RestController
@@ -16,50 +33,106 @@ import java.util.List;
 public class MediaController {
 
     private final MediaService mediaService;
+    private final LocalizationService localizationService;
 
     /**
      * Upload a single image
      */
     @PostMapping("/upload")
-    public ResponseEntity<ImageUploadResponseDto> uploadImage(
+    public CompletableFuture<ResponseEntity<ImageUploadResponseDto>> uploadImage(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "folder", defaultValue = "posts") String folder
     ) {
         log.info("Uploading image to folder: {}", folder);
-        MediaService.ImageUploadResult result = mediaService.uploadImage(file, folder);
-        
-        return ResponseEntity.ok(ImageUploadResponseDto.builder()
-                .url(result.url())
-                .thumbnailUrl(result.thumbnailUrl())
-                .filename(file.getOriginalFilename())
-                .size(file.getSize())
-                .contentType(file.getContentType())
-                .build());
+        Locale locale = LocaleContextHolder.getLocale();
+
+        return mediaService.uploadImage(file, folder)
+                .thenApply(result -> ResponseEntity.ok(toResponse(file, result, locale)));
     }
 
     /**
      * Upload multiple images
      */
     @PostMapping("/upload-multiple")
-    public ResponseEntity<List<ImageUploadResponseDto>> uploadMultipleImages(
+    public CompletableFuture<ResponseEntity<List<ImageUploadResponseDto>>> uploadMultipleImages(
             @RequestParam("files") List<MultipartFile> files,
             @RequestParam(value = "folder", defaultValue = "posts") String folder
     ) {
         log.info("Uploading {} images to folder: {}", files.size(), folder);
         
-        List<ImageUploadResponseDto> responses = files.stream()
-                .map(file -> {
-                    MediaService.ImageUploadResult result = mediaService.uploadImage(file, folder);
-                    return ImageUploadResponseDto.builder()
-                            .url(result.url())
-                            .thumbnailUrl(result.thumbnailUrl())
-                            .filename(file.getOriginalFilename())
-                            .size(file.getSize())
-                            .contentType(file.getContentType())
-                            .build();
-                })
-                .toList();
-        
-        return ResponseEntity.ok(responses);
+        // Completes off the request thread, so resolve the locale for error messages up front
+        Locale locale = LocaleContextHolder.getLocale();
+
+        return mediaService.uploadImages(files, folder)
+                .thenApply(results -> ResponseEntity.ok(IntStream.range(0, files.size())
+                        .mapToObj(i -> toResponse(files.get(i), results.get(i), locale))
+                        .toList()));
+    }
+
+    /**
+     * Get a presigned URL to upload an image straight to storage
+     */
+    @PostMapping("/direct-uploads")
+    public ResponseEntity<DirectUploadResponseDto> createDirectUpload(@Valid @RequestBody DirectUploadRequest request) {
+        return ResponseEntity.ok(mediaService.createDirectUpload(request));
+    }
+
+    /**
+     * Confirm a direct upload once the file was PUT to its presigned URL
+     */
+    @PostMapping("/direct-uploads/confirm")
+    public CompletableFuture<ResponseEntity<ImageUploadResponseDto>> confirmDirectUpload(
+            @Valid @RequestBody ConfirmDirectUploadRequest request
+    ) {
+        return mediaService.confirmDirectUpload(request.getKey())
+                .thenApply(result -> ResponseEntity.ok(ImageUploadResponseDto.builder()
+                        .uploadId(result.uploadId())
+                        .status(result.status())
+                        .url(result.url())
+                        .thumbnailUrl(result.thumbnailUrl())
+                        .build()));
+    }
+
+    /**
+     * Resized variant of a stored image, generated on first request and cached on disk
+     */
+    @GetMapping("/render/{folder}/{file}")
+    public CompletableFuture<ResponseEntity<Resource>> renderImage(
+            @PathVariable String folder,
+            @PathVariable String file,
+            @RequestParam("w") int width
+    ) {
+        return mediaService.renderOnDemand(folder, file, width)
+                .thenApply(rendered -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                        .contentType(MediaType.parseMediaType(rendered.contentType()))
+                        .body(new FileSystemResource(rendered.file())));
+    }
+
+    /**
+     * Poll the processing status of an upload (also pushed to /user/queue/media)
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<MediaUploadStatusDto> getUploadStatus(@PathVariable String uploadId) {
+        MediaUploadStatusDto status = mediaService.getUploadStatus(uploadId, SecurityUtil.getCurrentUserId());
+        if (status == null) {
+            throw new ResourceNotFoundException("Upload not found");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    private ImageUploadResponseDto toResponse(MultipartFile file, MediaService.ImageUploadResult result, Locale locale) {
+        return ImageUploadResponseDto.builder()
+                .uploadId(result.uploadId())
+                .status(result.status())
+                .url(result.url())
+                .thumbnailUrl(result.thumbnailUrl())
+                .filename(file.getOriginalFilename())
+                .size(file.getSize())
+                .contentType(file.getContentType())
+                .error(result.error() != null
+                        ? localizationService.get(result.error().getMessageEn(), result.error().getMessageAr(), locale)
+                        : null)
+                .build();
     }
 }
@@ -0,0 +1,35 @@
+package com.thegamersstation.marketplace.media;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Producer side of the media deletion queue. Enqueuing is a plain insert that joins the
+ * caller's transaction, so a delete is only scheduled if the change that dropped the
+ * image commits. {@link MediaDeletionWorker} does the storage work.
+ */
+@Component
+@RequiredArgsConstructor
+public class MediaDeletionQueue {
+
+    private final MediaDeletionTaskRepository taskRepository;
+
+    @Transactional
+    public void enqueue(MediaDeletionTask.Provider provider, String objectKey, Collection<String> storageKeys) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MediaDeletionTask> tasks = storageKeys.stream()
+                .map(key -> MediaDeletionTask.builder()
+                        .provider(provider)
+                        .storageKey(key)
+                        .objectKey(objectKey)
+                        .nextAttemptAt(now)
+                        .build())
+                .toList();
+        taskRepository.saveAll(tasks);
+    }
+}
@@ -0,0 +1,66 @@
+package com.thegamersstation.marketplace.media;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored key (an original or one of its renditions) waiting to be deleted.
+ */
+@Entity
+@Table(name = "media_deletion_queue")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaDeletionTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Provider provider;
+
+    @Column(name = "storage_key", nullable = false, length = 300)
+    private String storageKey;
+
+    /**
+     * Key of the original this entry belongs to; if the same content is uploaded again
+     * before the worker runs, the entry is dropped instead of deleting live data.
+     */
+    @Column(name = "object_key", nullable = false, length = 300)
+    private String objectKey;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * Set once media.deletion.max-attempts failed; the entry is kept for inspection but no longer retried
+     */
+    @Column(name = "dead_lettered_at")
+    private LocalDateTime deadLetteredAt;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Provider {
+        S3,
+        LOCAL,
+        MEMORY
+    }
+}
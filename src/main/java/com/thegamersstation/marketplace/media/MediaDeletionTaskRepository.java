@@ -0,0 +1,20 @@
+package com.thegamersstation.marketplace.media;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MediaDeletionTaskRepository extends JpaRepository<MediaDeletionTask, Long> {
+
+    @Query("SELECT t FROM MediaDeletionTask t WHERE t.provider = :provider AND t.nextAttemptAt <= :now " +
+           "AND t.deadLetteredAt IS NULL ORDER BY t.nextAttemptAt")
+    List<MediaDeletionTask> findDue(@Param("provider") MediaDeletionTask.Provider provider,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
+}
@@ -0,0 +1,130 @@
+package com.thegamersstation.marketplace.media;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the media deletion queue in batches of up to 1000 keys per provider
+ * (one S3 DeleteObjects call per batch). Providers not configured on this instance are left queued. Failed keys are retried with exponential backoff.
+ *
+ * <p>Each batch is deleted through {@link MediaObjectRegistry#deleteReleased}, which holds the
+ * object rows locked, so content uploaded again meanwhile is never lost. Keys that failed
+ * media.deletion.max-attempts times are dead-lettered. Deletes are idempotent, so running the
+ * worker on several instances at once is safe.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaDeletionWorker {
+
+    /** DeleteObjects accepts at most 1000 keys per request */
+    private static final int BATCH_SIZE = 1000;
+
+    private final MediaDeletionTaskRepository taskRepository;
+    private final MediaObjectRegistry mediaObjectRegistry;
+    private final MediaService mediaService;
+
+    @Value("${media.deletion.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${media.deletion.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${media.deletion.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    @Value("${media.deletion.max-attempts:10}")
+    private int maxAttempts;
+
+    @Scheduled(fixedDelayString = "${media.deletion.poll-interval-ms:5000}")
+    public void drain() {
+        for (MediaDeletionTask.Provider provider : MediaDeletionTask.Provider.values()) {
+            if (!mediaService.hasStorage(provider)) {
+                continue;
+            }
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<MediaDeletionTask> due = taskRepository.findDue(provider, LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+                if (due.isEmpty()) {
+                    break;
+                }
+                processBatch(provider, due);
+                if (due.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void processBatch(MediaDeletionTask.Provider provider, List<MediaDeletionTask> tasks) {
+        Map<String, String> failed = new HashMap<>();
+        // Content uploaded again since the delete was queued is live; those entries are dropped
+        Set<String> liveObjects = mediaObjectRegistry.deleteReleased(
+                tasks.stream().map(MediaDeletionTask::getObjectKey).collect(Collectors.toSet()),
+                released -> {
+                    List<String> keys = tasks.stream()
+                            .filter(task -> released.contains(task.getObjectKey()))
+                            .map(MediaDeletionTask::getStorageKey)
+                            .distinct()
+                            .toList();
+                    failed.putAll(deleteFromStorage(provider, keys));
+                    return tasks.stream()
+                            .filter(task -> failed.containsKey(task.getStorageKey()))
+                            .map(MediaDeletionTask::getObjectKey)
+                            .collect(Collectors.toSet());
+                });
+
+        List<Long> done = new ArrayList<>();
+        List<MediaDeletionTask> retry = new ArrayList<>();
+        for (MediaDeletionTask task : tasks) {
+            String error = liveObjects.contains(task.getObjectKey()) ? null : failed.get(task.getStorageKey());
+            if (error == null) {
+                done.add(task.getId());
+            } else {
+                scheduleRetry(task, error);
+                retry.add(task);
+            }
+        }
+
+        if (!done.isEmpty()) {
+            taskRepository.deleteAllByIdInBatch(done);
+        }
+        if (!retry.isEmpty()) {
+            taskRepository.saveAll(retry);
+        }
+    }
+
+    private Map<String, String> deleteFromStorage(MediaDeletionTask.Provider provider, List<String> keys) {
+        try {
+            return mediaService.deleteStoredObjects(provider, keys);
+        } catch (Exception e) {
+            log.error("Media deletion batch failed ({} {} keys), will retry", keys.size(), provider, e);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            Map<String, String> failed = new HashMap<>();
+            for (String key : keys) {
+                failed.put(key, error);
+            }
+            return failed;
+        }
+    }
+
+    private void scheduleRetry(MediaDeletionTask task, String error) {
+        int attempts = task.getAttempts() + 1;
+        long delaySeconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+        task.setAttempts(attempts);
+        task.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofSeconds(delaySeconds)));
+        task.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (attempts >= maxAttempts) {
+            task.setDeadLetteredAt(LocalDateTime.now());
+            log.error("Giving up on deleting media key {} after {} attempts: {}", task.getStorageKey(), attempts, error);
+        }
+    }
+}
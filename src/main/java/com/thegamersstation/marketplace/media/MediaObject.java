@@ -0,0 +1,78 @@
+package com.thegamersstation.marketplace.media;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored original image, addressed by the SHA-256 of its content.
+ * Shared by every upload of the same bytes into the same folder.
+ */
+@Entity
+@Table(name = "media_objects")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_key", nullable = false, unique = true, length = 300)
+    private String storageKey;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    /**
+     * Widths of the stored renditions, comma-separated (see ImageRenditions); null until generated
+     */
+    @Column(name = "rendition_widths", length = 64)
+    private String renditionWidths;
+
+    /**
+     * BlurHash placeholder, generated with the renditions
+     */
+    @Column(length = 64)
+    private String placeholder;
+
+    /**
+     * Entities the object is attached to; 0 for uploads not (yet) used anywhere
+     */
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 0;
+
+    /**
+     * Tombstone: the last reference was released and the object is queued for deletion.
+     * Re-registering the same content, or attaching it again, revives it.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean deleting = false;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,150 @@
+package com.thegamersstation.marketplace.media;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reference counting for content-addressed media objects. A reference is held by each entity
+ * column (post image, profile image, store logo, ...) the object is attached to; uploads only
+ * create the row. Kept apart from MediaService so each operation runs in a transaction,
+ * joining the caller's when attaching or detaching.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaObjectRegistry {
+
+    private final MediaObjectRepository mediaObjectRepository;
+
+    /**
+     * The already-stored object with this key, if there is one, touched so the orphan collector
+     * leaves it alone until the upload is attached.
+     */
+    @Transactional
+    public Optional<MediaObject> touchExisting(String storageKey) {
+        if (mediaObjectRepository.touch(storageKey) == 0) {
+            return Optional.empty();
+        }
+        return mediaObjectRepository.findByStorageKey(storageKey);
+    }
+
+    /**
+     * Record an object before it is stored, so the deletion worker cannot remove the key while
+     * (or after) the upload writes it.
+     */
+    @Transactional
+    public void register(String storageKey, String url, String contentHash, String contentType, long sizeBytes) {
+        mediaObjectRepository.upsertObject(storageKey, url, contentHash, contentType, sizeBytes);
+    }
+
+    /**
+     * The object was stored by a fallback backend under a different URL.
+     */
+    @Transactional
+    public void updateUrl(String storageKey, String url) {
+        mediaObjectRepository.updateUrl(storageKey, url);
+    }
+
+    /**
+     * Undo {@link #register} for an upload whose content could not be stored.
+     */
+    @Transactional
+    public void abandon(String storageKey) {
+        mediaObjectRepository.deleteUnreferencedByKey(storageKey);
+    }
+
+    @Transactional
+    public void recordRenditions(String storageKey, List<Integer> widths, String placeholder) {
+        mediaObjectRepository.updateRenditions(storageKey, ImageRenditions.formatWidths(widths), placeholder);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<MediaObject> findByUrl(String url) {
+        return mediaObjectRepository.findFirstByUrl(url);
+    }
+
+    /**
+     * Delete released objects from storage while their rows are locked, so an upload of the same
+     * content either revived the tombstone before (and the object is skipped) or waits until the
+     * delete is done and then stores the object afresh. Tombstones are dropped once deleted.
+     *
+     * @param objectKeys keys of the originals queued for deletion
+     * @param delete     deletes the given objects (originals and renditions) from storage and
+     *                   returns those that failed, which keep their tombstones for the retry
+     * @return object keys that are live again and must not be deleted
+     */
+    @Transactional
+    public Set<String> deleteReleased(Collection<String> objectKeys, Function<Set<String>, Set<String>> delete) {
+        if (objectKeys.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> live = mediaObjectRepository.lockByStorageKeys(objectKeys).stream()
+                .filter(object -> !object.getDeleting())
+                .map(MediaObject::getStorageKey)
+                .collect(Collectors.toSet());
+        Set<String> released = new HashSet<>(objectKeys);
+        released.removeAll(live);
+        if (!released.isEmpty()) {
+            Set<String> deleted = new HashSet<>(released);
+            deleted.removeAll(delete.apply(released));
+            if (!deleted.isEmpty()) {
+                mediaObjectRepository.deleteTombstones(deleted);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Claim objects for the orphan collector: forget the unattached ones no upload has returned
+     * since the cutoff, so they can no longer be handed out by deduplication.
+     * @return the keys that may be deleted from storage (claimed, or never tracked)
+     */
+    @Transactional
+    public Set<String> claimUntouched(Collection<String> storageKeys, LocalDateTime cutoff) {
+        if (storageKeys.isEmpty()) {
+            return Set.of();
+        }
+        mediaObjectRepository.deleteUntouchedSince(storageKeys, cutoff);
+        Set<String> claimed = new HashSet<>(storageKeys);
+        mediaObjectRepository.findExistingStorageKeys(storageKeys).forEach(claimed::remove);
+        return claimed;
+    }
+
+    /**
+     * Take a reference for an entity the image at this URL was attached to.
+     * Untracked URLs (legacy uploads, external links) are left alone.
+     */
+    @Transactional
+    public void attach(String url) {
+        mediaObjectRepository.incrementRefCount(url);
+    }
+
+    /**
+     * Drop a reference the caller took with {@link #attach}. The last one turns the row into a
+     * tombstone.
+     * @return true if the stored object should now be deleted. Never for untracked URLs: those
+     *         are left to the orphan collector, which checks that nothing references them
+     */
+    @Transactional
+    public boolean detach(String url) {
+        if (mediaObjectRepository.decrementRefCount(url) == 0) {
+            return false;
+        }
+        boolean unreferenced = mediaObjectRepository.markDeleting(url) > 0;
+        if (!unreferenced) {
+            log.debug("Media object still referenced, keeping: {}", url);
+        }
+        return unreferenced;
+    }
+}
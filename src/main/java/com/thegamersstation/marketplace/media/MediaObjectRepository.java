@@ -0,0 +1,102 @@
+package com.thegamersstation.marketplace.media;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, Long> {
+
+    Optional<MediaObject> findByStorageKey(String storageKey);
+
+    Optional<MediaObject> findFirstByUrl(String url);
+
+    /**
+     * Lock the rows of these objects for the deletion worker. Under REPEATABLE READ the locking
+     * read also covers the index gaps of keys without a row, holding off a concurrent first insert.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MediaObject m WHERE m.storageKey IN :storageKeys")
+    List<MediaObject> lockByStorageKeys(@Param("storageKeys") Collection<String> storageKeys);
+
+    @Modifying
+    @Query("DELETE FROM MediaObject m WHERE m.storageKey IN :storageKeys AND m.deleting = true")
+    int deleteTombstones(@Param("storageKeys") Collection<String> storageKeys);
+
+    /**
+     * Forget unattached objects not touched since the cutoff (no upload returned them), so no new
+     * upload can deduplicate against them while the orphan collector deletes them.
+     */
+    @Modifying
+    @Query("DELETE FROM MediaObject m WHERE m.storageKey IN :storageKeys AND m.refCount = 0 AND m.updatedAt < :cutoff")
+    int deleteUntouchedSince(@Param("storageKeys") Collection<String> storageKeys,
+                             @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT m.storageKey FROM MediaObject m WHERE m.storageKey IN :storageKeys")
+    List<String> findExistingStorageKeys(@Param("storageKeys") Collection<String> storageKeys);
+
+    /**
+     * Mark a live object as returned by an upload, keeping it from the orphan collector.
+     * Tombstones are being deleted and can't be revived here; only {@link #upsertObject}
+     * (which stores the content again) does that.
+     */
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE m.storageKey = :storageKey AND m.deleting = false")
+    int touch(@Param("storageKey") String storageKey);
+
+    /**
+     * Take a reference for an entity the object was attached to. Revives a tombstone the deletion
+     * worker hasn't reached yet; once it has, the row is gone and nothing is updated.
+     */
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + 1, m.deleting = false WHERE m.url = :url")
+    int incrementRefCount(@Param("url") String url);
+
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount - 1 WHERE m.url = :url AND m.refCount > 0")
+    int decrementRefCount(@Param("url") String url);
+
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.deleting = true WHERE m.url = :url AND m.refCount = 0 AND m.deleting = false")
+    int markDeleting(@Param("url") String url);
+
+    @Modifying
+    @Query("DELETE FROM MediaObject m WHERE m.storageKey = :storageKey AND m.refCount = 0")
+    int deleteUnreferencedByKey(@Param("storageKey") String storageKey);
+
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.url = :url WHERE m.storageKey = :storageKey")
+    int updateUrl(@Param("storageKey") String storageKey, @Param("url") String url);
+
+    /**
+     * Register an object about to be stored, unattached. If a concurrent upload of the same content
+     * registered it first, just touch it. Revives a tombstone: the content is being stored again.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO media_objects (storage_key, url, content_hash, content_type, size_bytes, ref_count) " +
+                   "VALUES (:storageKey, :url, :contentHash, :contentType, :sizeBytes, 0) " +
+                   "ON DUPLICATE KEY UPDATE deleting = FALSE, url = VALUES(url), updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int upsertObject(@Param("storageKey") String storageKey,
+                        @Param("url") String url,
+                        @Param("contentHash") String contentHash,
+                        @Param("contentType") String contentType,
+                        @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.renditionWidths = :renditionWidths, m.placeholder = :placeholder " +
+           "WHERE m.storageKey = :storageKey")
+    int updateRenditions(@Param("storageKey") String storageKey,
+                         @Param("renditionWidths") String renditionWidths,
+                         @Param("placeholder") String placeholder);
+}
@@ -0,0 +1,12 @@
+package com.thegamersstation.marketplace.media;
+
+/**
+ * Published once the renditions of an uploaded image have been stored.
+ * Rows that were saved while processing still point thumbnailUrl at the original
+ * and have no rendition widths; they can be filled in by listening for this event.
+ *
+ * @param renditionWidths stored widths in {@link ImageRenditions#formatWidths} form
+ * @param placeholder BlurHash of the image, or null
+ */
+public record MediaRenditionsReadyEvent(String originalUrl, String thumbnailUrl, String renditionWidths,
+                                        String placeholder) {}
@@ -1,56 +1,83 @@
 package com.thegamersstation.marketplace.media;
 
 import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
+import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
+import com.thegamersstation.marketplace.security.SecurityUtil;
+import com.thegamersstation.marketplace.media.dto.DirectUploadRequest;
+import com.thegamersstation.marketplace.media.dto.DirectUploadResponseDto;
+import com.thegamersstation.marketplace.media.dto.ImageRenditionDto;
+import com.thegamersstation.marketplace.media.dto.MediaUploadStatusDto;
+import com.thegamersstation.marketplace.media.codec.ImageCodecs;
+import com.thegamersstation.marketplace.media.codec.ImageEncoder;
+import com.thegamersstation.marketplace.media.storage.LocalMediaStorage;
+import com.thegamersstation.marketplace.media.storage.MediaStorage;
+import com.thegamersstation.marketplace.media.storage.PresignedPut;
+import com.thegamersstation.marketplace.media.storage.StoredObjectMetadata;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.*;
 
-import net.coobird.thumbnailator.Thumbnails;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 public class MediaService {
 
-    @Value("${media.storage.provider:local}")
-    private String storageProvider;
-
-    @Value("${media.storage.local.upload-dir:uploads}")
-    private String localUploadDir;
-
-    @Value("${media.storage.local.base-url:http://localhost:8080/api/v1/uploads}")
-    private String localBaseUrl;
-
     @Value("${media.max-size-mb:10}")
     private int maxSizeMb;
 
-    // AWS S3 Configuration
-    @Value("${aws.s3.bucket-name:}")
-    private String s3BucketName;
+    @Value("${media.upload.temp-dir:${java.io.tmpdir}}")
+    private String tempDir;
 
-    @Value("${aws.s3.region:us-east-1}")
-    private String s3Region;
+    @Value("${media.upload.permit-timeout-seconds:30}")
+    private long uploadPermitTimeoutSeconds;
+
+    @Value("${media.direct-upload.url-ttl-seconds:600}")
+    private long directUploadTtlSeconds;
+
+    /**
+     * Backend for new uploads (see media.storage.provider); local storage is the fallback.
+     */
+    private final MediaStorage storage;
+    private final LocalMediaStorage localStorage;
+    private final MediaUploadTracker uploadTracker;
+    private final MediaObjectRegistry mediaObjectRegistry;
+    private final MediaDeletionQueue deletionQueue;
+    private final PendingDirectUploads pendingDirectUploads;
+    private final RenditionCache renditionCache;
+    private final ImageCodecs codecs;
+    private final ImageProcessor imageProcessor;
+    private final TaskExecutor processingExecutor;
+    private final TaskExecutor ioExecutor;
 
-    @Value("${aws.cloudfront.domain:}")
-    private String cloudFrontDomain;
+    /**
+     * Caps how many images are held in memory at once across all requests.
+     * A permit is held from upload start until the thumbnail pipeline settles.
+     */
+    private final Semaphore uploadPermits;
 
-    private final S3Client s3Client;
 
     private static final Set<String> ALLOWED_IMAGE_TYPES = Set.of(
             "image/jpeg", "image/jpg", "image/png", "image/webp", "image/gif"
@@ -60,8 +87,16 @@ public class MediaService {
             "jpg", "jpeg", "png", "webp", "gif"
     );
 
-    private static final int THUMBNAIL_WIDTH = 400;
-    private static final double THUMBNAIL_QUALITY = 0.80;
+    /**
+     * File extension for keys of direct uploads, by content type.
+     */
+    private static final Map<String, String> EXTENSIONS_BY_TYPE = Map.of(
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/png", "png",
+            "image/webp", "webp",
+            "image/gif", "gif"
+    );
 
     /**
      * Whitelist of allowed upload folder names to prevent path traversal.
@@ -70,71 +105,265 @@ public class MediaService {
             "posts", "avatars", "stores", "backgrounds"
     );
 
+    private static final int MAGIC_HEADER_LENGTH = ImageCodecs.HEADER_LENGTH;
+
     /**
-     * Image file signatures (magic bytes) for content verification.
+     * File names accepted by the on-demand render endpoint (a single path segment, no hidden files).
      */
-    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
-    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 0x50, 0x4E, 0x47};
-    private static final byte[] GIF87_SIGNATURE = {0x47, 0x49, 0x46, 0x38, 0x37};
-    private static final byte[] GIF89_SIGNATURE = {0x47, 0x49, 0x46, 0x38, 0x39};
-    private static final byte[] WEBP_RIFF = {0x52, 0x49, 0x46, 0x46};
+    private static final Pattern RENDER_FILENAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*\\.(jpg|jpeg|png|webp|gif)");
 
     public MediaService(
-            @Value("${aws.access-key-id:}") String awsAccessKey,
-            @Value("${aws.secret-access-key:}") String awsSecretKey,
-            @Value("${aws.s3.region:us-east-1}") String region
+            MediaStorage storage,
+            LocalMediaStorage localStorage,
+            MediaUploadTracker uploadTracker,
+            MediaObjectRegistry mediaObjectRegistry,
+            MediaDeletionQueue deletionQueue,
+            PendingDirectUploads pendingDirectUploads,
+            RenditionCache renditionCache,
+            ImageCodecs codecs,
+            ImageProcessor imageProcessor,
+            @Qualifier("mediaProcessingExecutor") TaskExecutor processingExecutor,
+            @Qualifier("mediaIoExecutor") TaskExecutor ioExecutor,
+            @Value("${media.upload.max-concurrent:16}") int maxConcurrentUploads
     ) {
-        // Only initialize S3 client if credentials are provided
-        if (!awsAccessKey.isBlank() && !awsSecretKey.isBlank()) {
-            AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(awsAccessKey, awsSecretKey);
-            
-            this.s3Client = S3Client.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                    .build();
-            
-            log.info("AWS S3 client initialized successfully for region: {}", region);
-        } else {
-            this.s3Client = null;
-            log.warn("AWS S3 not configured - using local storage");
-        }
+        this.storage = storage;
+        this.localStorage = localStorage;
+        this.uploadTracker = uploadTracker;
+        this.mediaObjectRegistry = mediaObjectRegistry;
+        this.deletionQueue = deletionQueue;
+        this.pendingDirectUploads = pendingDirectUploads;
+        this.renditionCache = renditionCache;
+        this.codecs = codecs;
+        this.imageProcessor = imageProcessor;
+        this.processingExecutor = processingExecutor;
+        this.ioExecutor = ioExecutor;
+        this.uploadPermits = new Semaphore(maxConcurrentUploads, true);
+        log.info("Media uploads stored via {} storage", storage.provider());
     }
 
     /**
-     * Upload image file with automatic thumbnail generation.
+     * Upload image file; the thumbnail is generated in the background.
+     * The file is validated and staged on the calling thread; the future completes once the
+     * original is stored, so its URL is usable immediately. Until the upload reaches READY,
+     * thumbnailUrl points at the original.
      * @param file Multipart file to upload
      * @param folder Folder/path prefix (e.g., "avatars", "posts", "stores")
-     * @return Result containing public URLs for both the original and thumbnail image
+     * @return Result containing the upload ID, status and public URLs
      */
-    public ImageUploadResult uploadImage(MultipartFile file, String folder) {
+    public CompletableFuture<ImageUploadResult> uploadImage(MultipartFile file, String folder) {
+        return storeImage(file, folder, SecurityUtil.getCurrentUserId());
+    }
+
+    /**
+     * Upload multiple images in parallel.
+     * Each file is staged on its own virtual thread, bounded by the global upload cap; results keep
+     * the order of the input and a failing file yields a FAILED result instead of aborting the rest.
+     */
+    public CompletableFuture<List<ImageUploadResult>> uploadImages(List<MultipartFile> files, String folder) {
+        if (files == null || files.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
         validateFolder(folder);
-        validateImage(file);
 
-        if ("s3".equalsIgnoreCase(storageProvider) && s3Client != null) {
-            try {
-                return uploadToS3WithThumbnail(file, folder);
-            } catch (BusinessRuleException ex) {
-                log.warn("S3 upload failed, falling back to local storage: {}", ex.getMessage());
-                String localUrl = uploadToLocal(file, folder);
-                return new ImageUploadResult(localUrl, localUrl);
-            }
-        } else {
-            String localUrl = uploadToLocal(file, folder);
-            return new ImageUploadResult(localUrl, localUrl);
+        // Security context is thread-bound, so resolve the owner before fanning out
+        Long ownerId = SecurityUtil.getCurrentUserId();
+        List<CompletableFuture<ImageUploadResult>> uploads = files.stream()
+                .map(file -> CompletableFuture
+                        .supplyAsync(() -> storeImage(file, folder, ownerId), ioExecutor)
+                        .thenCompose(upload -> upload)
+                        .exceptionally(ImageUploadResult::failed))
+                .toList();
+
+        return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> uploads.stream()
+                        .map(CompletableFuture::join)
+                        .toList());
+    }
+
+    /**
+     * Issue a presigned URL the client uploads the file to directly, so the bytes never pass
+     * through this server. The URL is bound to the folder, content type and exact length
+     * requested; the upload must then be confirmed with {@link #confirmDirectUpload}.
+     */
+    public DirectUploadResponseDto createDirectUpload(DirectUploadRequest request) {
+        validateFolder(request.getFolder());
+        String contentType = request.getContentType().toLowerCase();
+        validateContentType(contentType);
+        validateFileSize(request.getContentLength());
+
+        String key = request.getFolder().toLowerCase() + "/" + UUID.randomUUID() + "." + EXTENSIONS_BY_TYPE.get(contentType);
+        PresignedPut presigned = storage
+                .presignPut(key, contentType, request.getContentLength(), Duration.ofSeconds(directUploadTtlSeconds))
+                .orElseThrow(() -> new BusinessRuleException(
+                    "Direct uploads are not available. Please use the regular upload.",
+                    "الرفع المباشر غير متاح. يرجى استخدام الرفع العادي."
+                ));
+        pendingDirectUploads.register(key, SecurityUtil.getCurrentUserId());
+
+        return DirectUploadResponseDto.builder()
+                .key(key)
+                .uploadUrl(presigned.url())
+                .method("PUT")
+                .headers(presigned.headers())
+                .expiresAt(presigned.expiresAt())
+                .build();
+    }
+
+    /**
+     * Accept a direct upload once the client's PUT finished: the object is checked with a HEAD
+     * (exists, size, content type), then fetched once to verify its magic bytes and dimensions
+     * and to generate renditions, exactly like a regular upload. Invalid objects are deleted.
+     * If the same content is already stored, the stored copy is reused and the new object deleted.
+     * The pending upload is claimed for the duration, so a concurrent confirm of the same key fails.
+     */
+    public CompletableFuture<ImageUploadResult> confirmDirectUpload(String key) {
+        Long ownerId = SecurityUtil.getCurrentUserId();
+        if (!pendingDirectUploads.claim(key, ownerId)) {
+            throw new ResourceNotFoundException("Upload not found");
+        }
+
+        Path downloaded;
+        try {
+            acquireUploadPermit();
+        } catch (RuntimeException e) {
+            pendingDirectUploads.unclaim(key);
+            throw e;
+        }
+        try {
+            downloaded = Files.createTempFile(Paths.get(tempDir), "direct-", "." + getFileExtension(key));
+        } catch (IOException e) {
+            uploadPermits.release();
+            pendingDirectUploads.unclaim(key);
+            throw new IllegalStateException("Failed to create temp file", e);
         }
+
+        // Set once the object is in the bucket: only then is a rejection about its content
+        AtomicBoolean uploaded = new AtomicBoolean();
+        return storage.head(key)
+                .thenCompose(metadata -> {
+                    StoredObjectMetadata object = metadata.orElseThrow(() -> new BusinessRuleException(
+                        "File has not been uploaded yet",
+                        "لم يتم رفع الملف بعد"
+                    ));
+                    uploaded.set(true);
+                    validateFileSize(object.contentLength());
+                    validateContentType(object.contentType());
+                    return storage.get(key, downloaded).thenApply(ignored -> object);
+                })
+                .thenApplyAsync(object -> {
+                    StagedUpload staged = verifyDownloaded(downloaded, getFileExtension(key), object);
+                    pendingDirectUploads.remove(key);
+
+                    String folder = key.substring(0, key.indexOf('/'));
+                    String contentKey = folder + "/" + staged.contentHash() + "." + staged.extension();
+                    Optional<MediaObject> existing = mediaObjectRegistry.touchExisting(contentKey);
+                    if (existing.isPresent() && existing.get().getRenditionWidths() != null) {
+                        storage.delete(key);
+                        releaseUpload(staged);
+                        MediaObject stored = existing.get();
+                        return ImageUploadResult.of(uploadTracker.completed(
+                                stored.getUrl(), ImageRenditions.parseWidths(stored.getRenditionWidths()),
+                                stored.getPlaceholder(), ownerId));
+                    }
+
+                    mediaObjectRegistry.register(key, storage.url(key), staged.contentHash(),
+                            staged.contentType(), staged.size());
+                    log.info("Direct upload confirmed: {} ({}KB), renditions queued", key, staged.size() / 1024);
+                    return startRenditions(staged, storage, key, ownerId);
+                }, ioExecutor)
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        return;
+                    }
+                    deleteQuietly(downloaded);
+                    uploadPermits.release();
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (uploaded.get() && cause instanceof BusinessRuleException) {
+                        // Rejected content: don't leave it in the bucket
+                        pendingDirectUploads.remove(key);
+                        storage.delete(key);
+                    } else {
+                        // Not uploaded yet, or a transient failure: the client can confirm again
+                        pendingDirectUploads.unclaim(key);
+                    }
+                });
     }
 
     /**
-     * Upload multiple images with thumbnail generation.
+     * Resized variant of a stored image, generated on first request and then served from the
+     * disk-backed {@link RenditionCache}. Widths are limited to the configured rendition widths so
+     * the cache can't be filled with arbitrary sizes; images are never upscaled.
+     * Works for every backend, including legacy images that never got renditions.
      */
-    public List<ImageUploadResult> uploadImages(List<MultipartFile> files, String folder) {
-        if (files == null || files.isEmpty()) {
-            return Collections.emptyList();
+    public CompletableFuture<RenderedImage> renderOnDemand(String folder, String filename, int width) {
+        validateFolder(folder);
+        if (!RENDER_FILENAME.matcher(filename).matches()) {
+            throw new ResourceNotFoundException("Image not found");
+        }
+        List<Integer> allowedWidths = imageProcessor.renditionWidthsDescending();
+        if (!allowedWidths.contains(width)) {
+            throw new BusinessRuleException(
+                "Unsupported width. Allowed: " + allowedWidths,
+                "العرض غير مدعوم. القيم المسموحة: " + allowedWidths
+            );
         }
 
-        return files.stream()
-                .map(file -> uploadImage(file, folder))
-                .toList();
+        String key = folder.toLowerCase() + "/" + filename;
+        ImageEncoder encoder = codecs.renditionEncoder(getFileExtension(filename));
+        // The output format is part of the cache key, so changing media.renditions.format never serves stale bytes
+        return renditionCache.get(encoder.format() + "/w" + width + "/" + key,
+                        target -> renderVariant(key, width, encoder, target))
+                .thenApply(file -> new RenderedImage(file, encoder.contentType()));
+    }
+
+    /**
+     * Fetch the original (primary storage, then local) and write it resized to the target file.
+     */
+    private CompletableFuture<Void> renderVariant(String key, int width, ImageEncoder encoder, Path target) {
+        Path source;
+        try {
+            source = Files.createTempFile(Paths.get(tempDir), "render-", "." + getFileExtension(key));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+
+        return findStored(key)
+                .thenCompose(holder -> holder.get(key, source))
+                .thenRunAsync(() -> {
+                    try {
+                        imageProcessor.render(source, width, encoder, target);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, processingExecutor)
+                .whenComplete((ignored, ex) -> deleteQuietly(source));
+    }
+
+    /**
+     * Backend holding the key, or a failed future with {@link ResourceNotFoundException}.
+     */
+    private CompletableFuture<MediaStorage> findStored(String key) {
+        return storage.head(key).thenCompose(metadata -> {
+            if (metadata.isPresent()) {
+                return CompletableFuture.completedFuture(storage);
+            }
+            if (storage == localStorage) {
+                return CompletableFuture.failedFuture(new ResourceNotFoundException("Image not found"));
+            }
+            return localStorage.head(key).thenApply(local -> {
+                if (local.isEmpty()) {
+                    throw new ResourceNotFoundException("Image not found");
+                }
+                return (MediaStorage) localStorage;
+            });
+        });
+    }
+
+    /**
+     * Current processing status of an upload made by the given user, or null if unknown.
+     */
+    public MediaUploadStatusDto getUploadStatus(String uploadId, Long userId) {
+        return uploadTracker.get(uploadId, userId);
     }
 
     /**
@@ -143,104 +372,301 @@ public class MediaService {
      * For URLs that don't follow the convention, returns the original URL as fallback.
      */
     public String deriveThumbnailUrl(String originalUrl) {
-        if (originalUrl == null || originalUrl.isBlank()) {
-            return originalUrl;
+        return ImageRenditions.deriveUrl(originalUrl, ImageRenditions.THUMBNAIL_WIDTH);
+    }
+
+    /**
+     * Thumbnail URL to persist for an original image URL.
+     * Returns the original while its thumbnail is still being generated (or failed, or was
+     * never generated, as for legacy uploads), so clients never reference an object that doesn't exist.
+     */
+    public String resolveThumbnailUrl(String originalUrl) {
+        if (originalUrl == null) {
+            return null;
+        }
+        MediaUploadStatusDto status = uploadTracker.findByUrl(originalUrl);
+        if (status != null) {
+            return status.getThumbnailUrl();
+        }
+        return mediaObjectRegistry.findByUrl(originalUrl)
+                .map(object -> object.getRenditionWidths() != null ? deriveThumbnailUrl(originalUrl) : originalUrl)
+                // Uploaded before content addressing: thumbnails followed the naming convention
+                .orElseGet(() -> deriveThumbnailUrl(originalUrl));
+    }
+
+    /**
+     * Rendition widths to persist for an original image URL, or null while they are
+     * still being generated or unknown (see {@link ImageRenditions}).
+     */
+    public String resolveRenditionWidths(String originalUrl) {
+        if (originalUrl == null) {
+            return null;
         }
-        int dotIndex = originalUrl.lastIndexOf('.');
-        if (dotIndex <= 0) {
-            return originalUrl;
+        MediaUploadStatusDto status = uploadTracker.findByUrl(originalUrl);
+        if (status == null) {
+            // No longer tracked in memory: fall back to the stored object
+            return mediaObjectRegistry.findByUrl(originalUrl)
+                    .map(MediaObject::getRenditionWidths)
+                    .orElse(null);
         }
-        return originalUrl.substring(0, dotIndex) + "-thumb" + originalUrl.substring(dotIndex);
+        if (status.getStatus() != MediaUploadStatusDto.Status.READY) {
+            return null;
+        }
+        return ImageRenditions.formatWidths(status.getRenditions().stream()
+                .map(ImageRenditionDto::getWidth)
+                .toList());
     }
 
     /**
-     * Delete image by URL
+     * BlurHash placeholder to persist for an original image URL, or null while renditions
+     * are still being generated or unknown.
      */
-    public void deleteImage(String imageUrl) {
+    public String resolvePlaceholder(String originalUrl) {
+        if (originalUrl == null) {
+            return null;
+        }
+        MediaUploadStatusDto status = uploadTracker.findByUrl(originalUrl);
+        if (status == null) {
+            return mediaObjectRegistry.findByUrl(originalUrl)
+                    .map(MediaObject::getPlaceholder)
+                    .orElse(null);
+        }
+        return status.getPlaceholder();
+    }
+
+    /**
+     * Record that an entity now uses the image at this URL, so it isn't deleted while attached.
+     * Call from the transaction that stores the URL on the entity.
+     */
+    public void attachImage(String imageUrl) {
         if (imageUrl == null || imageUrl.isBlank()) {
             return;
         }
+        mediaObjectRegistry.attach(imageUrl);
+    }
 
-        if ("s3".equalsIgnoreCase(storageProvider) && s3Client != null) {
-            deleteFromS3(imageUrl);
-        } else {
-            deleteFromLocal(imageUrl);
+    public void attachImages(List<String> imageUrls) {
+        if (imageUrls == null || imageUrls.isEmpty()) {
+            return;
         }
+
+        imageUrls.forEach(this::attachImage);
     }
 
     /**
-     * Delete multiple images
+     * Release the reference an entity took with {@link #attachImage}; pass only URLs read from the
+     * entity, never from the request. Once nothing else uses the content, the original and all of
+     * its renditions are queued for deletion; storage is touched by the background worker, never
+     * on the caller's thread. Untracked (legacy) images are left to the orphan collector.
      */
-    public void deleteImages(List<String> imageUrls) {
+    public void detachImage(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return;
+        }
+        if (!mediaObjectRegistry.detach(imageUrl)) {
+            return;
+        }
+
+        StorageLocation location = locate(imageUrl);
+        if (location == null) {
+            log.warn("Could not determine storage key for URL, not deleting: {}", imageUrl);
+            return;
+        }
+
+        String objectKey = location.key();
+        List<String> keys = new ArrayList<>();
+        keys.add(objectKey);
+        imageProcessor.renditionWidthsDescending().forEach(width -> keys.add(ImageRenditions.deriveUrl(objectKey, width)));
+        deletionQueue.enqueue(location.storage().provider(), objectKey, keys);
+    }
+
+    public void detachImages(List<String> imageUrls) {
         if (imageUrls == null || imageUrls.isEmpty()) {
             return;
         }
 
-        imageUrls.forEach(this::deleteImage);
+        imageUrls.forEach(this::detachImage);
     }
 
     /**
-     * Extract S3 key from CloudFront or S3 URL
-     * Example URLs:
-     * - CloudFront: https://d111111abcdef8.cloudfront.net/ads/uuid.jpg
-     * - S3: https://bucket-name.s3.region.amazonaws.com/ads/uuid.jpg
+     * Whether the URL points at an object in one of the configured storage backends.
      */
-    public String extractS3Key(String imageUrl) {
-        if (imageUrl == null || imageUrl.isBlank()) {
+    public boolean isStoredMedia(String imageUrl) {
+        return locate(imageUrl) != null;
+    }
+
+    /**
+     * Whether keys queued for the given provider can be acted on by this instance.
+     */
+    public boolean hasStorage(MediaDeletionTask.Provider provider) {
+        return storageFor(provider) != null;
+    }
+
+    /**
+     * Delete keys from the given provider's storage; missing keys count as deleted.
+     * Blocks until the backend answers; called by the deletion worker only.
+     * @return keys that could not be deleted, mapped to the error message
+     */
+    public Map<String, String> deleteStoredObjects(MediaDeletionTask.Provider provider, List<String> keys) {
+        MediaStorage target = storageFor(provider);
+        if (target == null) {
+            throw new IllegalStateException(provider + " storage is not configured");
+        }
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        return target.batchDelete(keys).join();
+    }
+
+    private MediaStorage storageFor(MediaDeletionTask.Provider provider) {
+        if (storage.provider() == provider) {
+            return storage;
+        }
+        return localStorage.provider() == provider ? localStorage : null;
+    }
+
+    /**
+     * Find the backend and key behind a public URL: the primary storage first, then local
+     * storage (files kept from local mode or S3 fallback). Null for foreign URLs.
+     */
+    private StorageLocation locate(String url) {
+        if (url == null || url.isBlank()) {
             return null;
         }
+        for (MediaStorage candidate : List.of(storage, localStorage)) {
+            Optional<String> key = candidate.keyForUrl(url);
+            if (key.isPresent()) {
+                return new StorageLocation(candidate, key.get());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stage and validate the upload on the calling thread, then store it asynchronously.
+     * The upload permit and staged file are released when the rendition pipeline settles,
+     * or as soon as the upload fails.
+     */
+    private CompletableFuture<ImageUploadResult> storeImage(MultipartFile file, String folder, Long ownerId) {
+        validateFolder(folder);
+        validateImage(file);
 
+        acquireUploadPermit();
+        StagedUpload staged = null;
         try {
-            // CloudFront URL pattern
-            if (imageUrl.contains("cloudfront.net")) {
-                // Extract path after domain: https://domain.cloudfront.net/path/to/file.jpg -> path/to/file.jpg
-                String[] parts = imageUrl.split("cloudfront.net/");
-                return parts.length > 1 ? parts[1] : null;
-            }
-            
-            // S3 URL pattern
-            if (imageUrl.contains("s3") && imageUrl.contains("amazonaws.com")) {
-                // Extract path after bucket: https://bucket.s3.region.amazonaws.com/path/to/file.jpg -> path/to/file.jpg
-                String[] parts = imageUrl.split("amazonaws.com/");
-                return parts.length > 1 ? parts[1] : null;
+            staged = stageUpload(file);
+            imageProcessor.validateDimensions(staged.file());
+            String storageKey = folder + "/" + staged.contentHash() + "." + staged.extension();
+            return storeStaged(staged, storageKey, ownerId);
+        } catch (RuntimeException e) {
+            releaseUpload(staged);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<ImageUploadResult> storeStaged(StagedUpload staged, String storageKey, Long ownerId) {
+        // Identical content already stored: reuse it, and its renditions if they exist
+        Optional<MediaObject> existing = mediaObjectRegistry.touchExisting(storageKey);
+        if (existing.isPresent()) {
+            MediaObject object = existing.get();
+            log.info("Upload matches stored content, reusing {}", object.getUrl());
+            StorageLocation location = locate(object.getUrl());
+            if (object.getRenditionWidths() == null && location != null) {
+                // Renditions still pending or failed for the first upload; render from this copy
+                return CompletableFuture.completedFuture(
+                        startRenditions(staged, location.storage(), location.key(), ownerId));
             }
-            
-        } catch (Exception e) {
-            log.error("Failed to extract S3 key from URL: {}", imageUrl, e);
+            releaseUpload(staged);
+            return CompletableFuture.completedFuture(ImageUploadResult.of(uploadTracker.completed(
+                    object.getUrl(), ImageRenditions.parseWidths(object.getRenditionWidths()),
+                    object.getPlaceholder(), ownerId)));
         }
 
-        return null;
+        // Registered before the PUT so a queued delete of the same content cannot remove it afterwards
+        mediaObjectRegistry.register(storageKey, storage.url(storageKey), staged.contentHash(),
+                staged.contentType(), staged.size());
+        return putOriginal(staged, storageKey)
+                // Storage callbacks may run on SDK event-loop threads; do the DB work on the I/O pool
+                .thenApplyAsync(target -> {
+                    String originalUrl = target.url(storageKey);
+                    if (target != storage) {
+                        mediaObjectRegistry.updateUrl(storageKey, originalUrl);
+                    }
+                    log.info("Image uploaded to {} storage: {} ({}KB), renditions queued",
+                            target.provider(), originalUrl, staged.size() / 1024);
+                    // Permit and staged file are released by the rendition pipeline once it settles
+                    return startRenditions(staged, target, storageKey, ownerId);
+                }, ioExecutor)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        mediaObjectRegistry.abandon(storageKey);
+                        releaseUpload(staged);
+                    }
+                });
     }
 
     /**
-     * Validate folder name against whitelist to prevent path traversal.
+     * Store the original in the primary backend, falling back to local storage if that fails.
+     * Completes with the backend that holds the object.
      */
-    private void validateFolder(String folder) {
-        if (folder == null || !ALLOWED_FOLDERS.contains(folder.toLowerCase())) {
+    private CompletableFuture<MediaStorage> putOriginal(StagedUpload staged, String storageKey) {
+        return storage.put(storageKey, staged.file(), staged.contentType())
+                .thenApply(ignored -> (MediaStorage) storage)
+                .exceptionallyCompose(ex -> {
+                    if (storage == localStorage) {
+                        return CompletableFuture.failedFuture(ex);
+                    }
+                    log.warn("{} upload failed, falling back to local storage: {}", storage.provider(), ex.getMessage());
+                    return localStorage.put(storageKey, staged.file(), staged.contentType())
+                            .thenApply(ignored -> (MediaStorage) localStorage);
+                })
+                .exceptionallyCompose(ex -> {
+                    log.error("Failed to store image {}", storageKey, ex);
+                    return CompletableFuture.failedFuture(new BusinessRuleException(
+                        "Failed to upload image. Please try again.",
+                        "فشل رفع الصورة. يرجى المحاولة مرة أخرى."
+                    ));
+                });
+    }
+
+    private void releaseUpload(StagedUpload staged) {
+        if (staged != null) {
+            deleteQuietly(staged.file());
+        }
+        uploadPermits.release();
+    }
+
+    private void acquireUploadPermit() {
+        boolean acquired;
+        try {
+            acquired = uploadPermits.tryAcquire(uploadPermitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
             throw new BusinessRuleException(
-                "Invalid upload folder. Allowed: " + String.join(", ", ALLOWED_FOLDERS),
-                "مجلد الرفع غير صحيح"
+                "Too many uploads in progress. Please try again shortly.",
+                "يوجد عدد كبير من عمليات الرفع حالياً. يرجى المحاولة بعد قليل."
             );
         }
     }
 
     /**
-     * Validate that a resolved path is within the upload root directory.
+     * Validate folder name against whitelist to prevent path traversal.
      */
-    private void validatePathWithinUploadRoot(Path resolvedPath) {
-        Path uploadRoot = Paths.get(localUploadDir).normalize().toAbsolutePath();
-        Path normalizedPath = resolvedPath.normalize().toAbsolutePath();
-        if (!normalizedPath.startsWith(uploadRoot)) {
-            log.warn("Path traversal attempt detected: {}", resolvedPath);
+    private void validateFolder(String folder) {
+        if (folder == null || !ALLOWED_FOLDERS.contains(folder.toLowerCase())) {
             throw new BusinessRuleException(
-                "Invalid file path",
-                "مسار الملف غير صحيح"
+                "Invalid upload folder. Allowed: " + String.join(", ", ALLOWED_FOLDERS),
+                "مجلد الرفع غير صحيح"
             );
         }
     }
 
     /**
-     * Validate image file: size, content type, extension, and magic bytes.
+     * Validate image file metadata: size, content type, and extension.
+     * Content is verified against magic bytes while staging (see {@link #stageUpload}).
      */
     private void validateImage(MultipartFile file) {
         if (file == null || file.isEmpty()) {
@@ -250,23 +676,8 @@ public class MediaService {
             );
         }
 
-        // Check file size
-        long maxSizeBytes = maxSizeMb * 1024L * 1024L;
-        if (file.getSize() > maxSizeBytes) {
-            throw new BusinessRuleException(
-                    String.format("File size exceeds maximum allowed size of %d MB", maxSizeMb),
-                    String.format("حجم الملف يتجاوز الحد الأقصى المسموح وهو %d ميجابايت", maxSizeMb)
-            );
-        }
-
-        // Check content type
-        String contentType = file.getContentType();
-        if (contentType == null || !ALLOWED_IMAGE_TYPES.contains(contentType.toLowerCase())) {
-            throw new BusinessRuleException(
-                    "Invalid file type. Allowed types: " + String.join(", ", ALLOWED_IMAGE_TYPES),
-                    "نوع الملف غير صحيح. الأنواع المسموحة: " + String.join(", ", ALLOWED_IMAGE_TYPES)
-            );
-        }
+        validateFileSize(file.getSize());
+        validateContentType(file.getContentType());
 
         // Check file extension
         String originalFilename = file.getOriginalFilename();
@@ -279,222 +690,193 @@ public class MediaService {
                 );
             }
         }
-
-        // Verify file content via magic bytes
-        validateImageMagicBytes(file);
     }
 
-    /**
-     * Verify file content matches a known image signature (magic bytes).
-     */
-    private void validateImageMagicBytes(MultipartFile file) {
-        try (InputStream is = file.getInputStream()) {
-            byte[] header = new byte[12];
-            int bytesRead = is.read(header);
-            if (bytesRead < 3) {
-                throw new BusinessRuleException(
-                    "File is too small to be a valid image",
-                    "الملف صغير جداً ليكون صورة صالحة"
-                );
-            }
-
-            boolean valid = startsWith(header, JPEG_SIGNATURE)
-                    || startsWith(header, PNG_SIGNATURE)
-                    || startsWith(header, GIF87_SIGNATURE)
-                    || startsWith(header, GIF89_SIGNATURE)
-                    || startsWith(header, WEBP_RIFF);
-
-            if (!valid) {
-                throw new BusinessRuleException(
-                    "File content does not match a valid image format",
-                    "محتوى الملف لا يطابق صيغة صورة صحيحة"
-                );
-            }
-        } catch (IOException e) {
+    private void validateFileSize(long size) {
+        long maxSizeBytes = maxSizeMb * 1024L * 1024L;
+        if (size > maxSizeBytes) {
             throw new BusinessRuleException(
-                "Failed to read file content",
-                "فشل قراءة محتوى الملف"
+                    String.format("File size exceeds maximum allowed size of %d MB", maxSizeMb),
+                    String.format("حجم الملف يتجاوز الحد الأقصى المسموح وهو %d ميجابايت", maxSizeMb)
             );
         }
     }
 
-    private static boolean startsWith(byte[] data, byte[] prefix) {
-        if (data.length < prefix.length) return false;
-        for (int i = 0; i < prefix.length; i++) {
-            if (data[i] != prefix[i]) return false;
+    private void validateContentType(String contentType) {
+        if (contentType == null || !ALLOWED_IMAGE_TYPES.contains(contentType.toLowerCase())) {
+            throw new BusinessRuleException(
+                    "Invalid file type. Allowed types: " + String.join(", ", ALLOWED_IMAGE_TYPES),
+                    "نوع الملف غير صحيح. الأنواع المسموحة: " + String.join(", ", ALLOWED_IMAGE_TYPES)
+            );
         }
-        return true;
     }
 
     /**
-     * Upload original image + thumbnail to AWS S3.
+     * Verify a directly uploaded object fetched to a temp file, as {@link #stageUpload} does for
+     * multipart uploads: magic bytes, dimensions, and the content hash.
      */
-    private ImageUploadResult uploadToS3WithThumbnail(MultipartFile file, String folder) {
+    private StagedUpload verifyDownloaded(Path file, String extension, StoredObjectMetadata object) {
         try {
-            // Generate unique key
-            String originalFilename = file.getOriginalFilename();
-            String extension = getFileExtension(originalFilename);
-            String baseName = UUID.randomUUID().toString();
-            String s3Key = folder + "/" + baseName + "." + extension;
-            String thumbS3Key = folder + "/" + baseName + "-thumb." + extension;
-
-            String contentType = file.getContentType();
-            byte[] originalBytes = file.getBytes();
-
-            // 1) Upload original
-            PutObjectRequest putOriginal = PutObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(s3Key)
-                    .contentType(contentType)
-                    .contentLength((long) originalBytes.length)
-                    .cacheControl("public, max-age=31536000, immutable")
-                    .build();
-            s3Client.putObject(putOriginal, RequestBody.fromBytes(originalBytes));
-
-            // 2) Generate and upload thumbnail
-            byte[] thumbBytes = generateThumbnail(originalBytes, extension);
-            PutObjectRequest putThumb = PutObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(thumbS3Key)
-                    .contentType(contentType)
-                    .contentLength((long) thumbBytes.length)
-                    .cacheControl("public, max-age=31536000, immutable")
-                    .build();
-            s3Client.putObject(putThumb, RequestBody.fromBytes(thumbBytes));
-
-            // Build public URLs
-            String originalUrl;
-            String thumbnailUrl;
-            if (cloudFrontDomain != null && !cloudFrontDomain.isBlank()) {
-                originalUrl = "https://" + cloudFrontDomain + "/" + s3Key;
-                thumbnailUrl = "https://" + cloudFrontDomain + "/" + thumbS3Key;
-            } else {
-                String base = String.format("https://%s.s3.%s.amazonaws.com/", s3BucketName, s3Region);
-                originalUrl = base + s3Key;
-                thumbnailUrl = base + thumbS3Key;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream is = new DigestInputStream(new BufferedInputStream(Files.newInputStream(file)), digest)) {
+                validateImageMagicBytes(is.readNBytes(MAGIC_HEADER_LENGTH));
+                is.transferTo(OutputStream.nullOutputStream());
             }
-
-            log.info("Image uploaded to S3: original={}, thumbnail={} ({}KB → {}KB)",
-                    originalUrl, thumbnailUrl,
-                    originalBytes.length / 1024, thumbBytes.length / 1024);
-
-            return new ImageUploadResult(originalUrl, thumbnailUrl);
-
-        } catch (S3Exception e) {
-            log.error("Failed to upload image to S3: {}", e.awsErrorDetails().errorMessage(), e);
-            throw new BusinessRuleException(
-                "Failed to upload image. Please try again.",
-                "فشل رفع الصورة. يرجى المحاولة مرة أخرى."
-            );
+            imageProcessor.validateDimensions(file);
+            return new StagedUpload(file, HexFormat.of().formatHex(digest.digest()),
+                    extension.toLowerCase(), object.contentType(), object.contentLength());
         } catch (IOException e) {
-            log.error("Failed to read/process image file", e);
-            throw new BusinessRuleException(
-                "Failed to upload image. Please try again.",
-                "فشل رفع الصورة. يرجى المحاولة مرة أخرى."
-            );
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
     /**
-     * Generate a resized thumbnail using Thumbnailator.
-     * Resizes to THUMBNAIL_WIDTH maintaining aspect ratio and compresses.
+     * Copy the upload to a private temp file through a single buffered stream, verifying the
+     * magic bytes and computing the SHA-256 content hash from the same stream on the way.
+     * Everything downstream (storage PUT, rendition decode) reads from this file,
+     * so no stage holds the full original on the heap and the file outlives the request
+     * for background processing.
      */
-    private byte[] generateThumbnail(byte[] originalBytes, String extension) throws IOException {
-        String outputFormat = switch (extension.toLowerCase()) {
-            case "png" -> "png";
-            case "gif" -> "gif";
-            default -> "jpeg";
-        };
-
-        ByteArrayOutputStream thumbOut = new ByteArrayOutputStream();
-        Thumbnails.of(new ByteArrayInputStream(originalBytes))
-                .width(THUMBNAIL_WIDTH)
-                .outputQuality(THUMBNAIL_QUALITY)
-                .outputFormat(outputFormat)
-                .toOutputStream(thumbOut);
-        return thumbOut.toByteArray();
+    private StagedUpload stageUpload(MultipartFile file) {
+        String extension = getFileExtension(file.getOriginalFilename()).toLowerCase();
+        Path staged = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream is = new BufferedInputStream(new DigestInputStream(file.getInputStream(), digest))) {
+                is.mark(MAGIC_HEADER_LENGTH);
+                validateImageMagicBytes(is.readNBytes(MAGIC_HEADER_LENGTH));
+                is.reset();
+
+                staged = Files.createTempFile(Paths.get(tempDir), "upload-", "." + extension);
+                long size = Files.copy(is, staged, StandardCopyOption.REPLACE_EXISTING);
+                return new StagedUpload(staged, HexFormat.of().formatHex(digest.digest()),
+                        extension, file.getContentType(), size);
+            }
+        } catch (IOException e) {
+            deleteQuietly(staged);
+            log.error("Failed to stage uploaded file", e);
+            throw new BusinessRuleException(
+                "Failed to read file content",
+                "فشل قراءة محتوى الملف"
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(staged);
+            throw e;
+        }
     }
 
     /**
-     * Upload to local storage
+     * Verify file content matches a known image signature (magic bytes).
      */
-    private String uploadToLocal(MultipartFile file, String folder) {
-        try {
-            // Create directory if it doesn't exist
-            Path uploadPath = Paths.get(localUploadDir, folder);
-            validatePathWithinUploadRoot(uploadPath);
-            Files.createDirectories(uploadPath);
-
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = getFileExtension(originalFilename);
-            String uniqueFilename = UUID.randomUUID() + "." + extension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            validatePathWithinUploadRoot(filePath);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Return public URL
-            String publicUrl = localBaseUrl + "/" + folder + "/" + uniqueFilename;
-            log.info("Image uploaded to local storage: {}", publicUrl);
-            return publicUrl;
+    private void validateImageMagicBytes(byte[] header) {
+        if (header.length < 3) {
+            throw new BusinessRuleException(
+                "File is too small to be a valid image",
+                "الملف صغير جداً ليكون صورة صالحة"
+            );
+        }
 
-        } catch (IOException e) {
-            log.error("Failed to upload image to local storage", e);
+        if (ImageCodecs.detectContentType(header).isEmpty()) {
             throw new BusinessRuleException(
-                "Failed to upload image. Please try again.",
-                "فشل رفع الصورة. يرجى المحاولة مرة أخرى."
+                "File content does not match a valid image format",
+                "محتوى الملف لا يطابق صيغة صورة صحيحة"
             );
         }
     }
 
-    /**
-     * Delete from AWS S3
-     */
-    private void deleteFromS3(String imageUrl) {
-        String s3Key = extractS3Key(imageUrl);
-        if (s3Key == null) {
-            log.warn("Could not extract S3 key from URL: {}", imageUrl);
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
             return;
         }
-
         try {
-            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(s3Key)
-                    .build();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file: {}", path, e);
+        }
+    }
 
-            s3Client.deleteObject(deleteObjectRequest);
-            log.info("Image deleted from S3: {}", s3Key);
+    /**
+     * Hand the renditions of a stored original off to the media executors: decoding and
+     * resizing run on the CPU-bound pool, the rendition PUTs are issued to the storage backend
+     * without blocking a thread. Releases the upload permit and staged file once it settles.
+     */
+    private ImageUploadResult startRenditions(StagedUpload staged, MediaStorage target, String storageKey, Long ownerId) {
+        String originalUrl = target.url(storageKey);
+        MediaUploadStatusDto status = uploadTracker.start(originalUrl, ownerId);
+        String uploadId = status.getUploadId();
+
+        CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return imageProcessor.generateRenditions(staged.file(), staged.extension());
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Rendition generation failed", e);
+                    }
+                }, processingExecutor)
+                .thenCompose(renditions -> storeRenditions(target, storageKey, renditions))
+                .whenCompleteAsync((stored, ex) -> {
+                    releaseUpload(staged);
+                    if (ex == null) {
+                        log.info("Renditions stored for {}: widths={} ({}KB original)",
+                                originalUrl, stored.widths(), staged.size() / 1024);
+                        mediaObjectRegistry.recordRenditions(storageKey, stored.widths(), stored.placeholder());
+                        uploadTracker.markReady(uploadId, stored.widths(), stored.placeholder());
+                    } else {
+                        log.error("Failed to generate renditions for {}", originalUrl, ex);
+                        uploadTracker.markFailed(uploadId);
+                    }
+                }, ioExecutor);
+
+        return ImageUploadResult.of(status);
+    }
 
-        } catch (S3Exception e) {
-            log.error("Failed to delete image from S3: {}", s3Key, e);
-        }
+    private CompletableFuture<StoredRenditions> storeRenditions(MediaStorage target, String originalKey,
+                                                                ImageProcessor.RenditionSet renditions) {
+        return uploadRenditions(target, originalKey, renditions.files())
+                .thenApply(widths -> new StoredRenditions(widths, renditions.placeholder()));
     }
 
     /**
-     * Delete from local storage
+     * PUT every rendition concurrently; each temp file is deleted once its upload settles.
+     * Completes with the stored widths.
      */
-    private void deleteFromLocal(String imageUrl) {
-        try {
-            // Extract path from URL
-            String relativePath = imageUrl.replace(localBaseUrl + "/", "");
-            Path filePath = Paths.get(localUploadDir, relativePath).normalize().toAbsolutePath();
-            Path uploadRoot = Paths.get(localUploadDir).normalize().toAbsolutePath();
-
-            // Prevent path traversal: ensure resolved path is within upload root
-            if (!filePath.startsWith(uploadRoot)) {
-                log.warn("Path traversal attempt in delete: {}", imageUrl);
-                return;
-            }
+    private CompletableFuture<List<Integer>> uploadRenditions(MediaStorage target, String originalKey,
+                                                              List<ImageProcessor.RenditionFile> renditions) {
+        CompletableFuture<?>[] puts = renditions.stream()
+                .map(rendition -> target
+                        .put(ImageRenditions.deriveUrl(originalKey, rendition.slot()), rendition.file(), rendition.contentType())
+                        .whenComplete((ignored, ex) -> deleteQuietly(rendition.file())))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(puts)
+                .thenApply(ignored -> renditions.stream().map(ImageProcessor.RenditionFile::width).toList());
+    }
 
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                log.info("Image deleted from local storage: {}", filePath);
-            }
-        } catch (IOException e) {
-            log.error("Failed to delete image from local storage: {}", imageUrl, e);
+    /**
+     * Generate and store the rendition set for an already stored image, on the calling thread.
+     * The original is streamed to a temp file rather than buffered. Used by the backfill job.
+     * @return stored rendition widths and placeholder
+     */
+    public StoredRenditions generateRenditionsForStoredImage(String originalUrl) throws IOException {
+        StorageLocation location = locate(originalUrl);
+        if (location == null) {
+            throw new IllegalArgumentException("Not a stored image URL: " + originalUrl);
+        }
+
+        String extension = getFileExtension(location.key()).toLowerCase();
+        Path source = Files.createTempFile(Paths.get(tempDir), "backfill-", "." + extension);
+        try {
+            location.storage().get(location.key(), source).join();
+            StoredRenditions stored = storeRenditions(location.storage(), location.key(),
+                    imageProcessor.generateRenditions(source, extension)).join();
+            mediaObjectRegistry.recordRenditions(location.key(), stored.widths(), stored.placeholder());
+            return stored;
+        } finally {
+            deleteQuietly(source);
         }
     }
 
@@ -508,8 +890,41 @@ public class MediaService {
         return filename.substring(filename.lastIndexOf('.') + 1);
     }
 
+    private record StagedUpload(Path file, String contentHash, String extension, String contentType, long size) {}
+
+    /**
+     * Widths of the renditions stored for an image and its BlurHash placeholder (may be null).
+     */
+    public record StoredRenditions(List<Integer> widths, String placeholder) {}
+
+    private record StorageLocation(MediaStorage storage, String key) {}
+
     /**
-     * Result record for image upload containing both original and thumbnail URLs.
+     * A cached on-demand rendition and the content type it was encoded with.
      */
-    public record ImageUploadResult(String url, String thumbnailUrl) {}
+    public record RenderedImage(Path file, String contentType) {}
+
+    /**
+     * Result record for image upload containing the upload ID, processing status,
+     * and both original and thumbnail URLs.
+     */
+    public record ImageUploadResult(String uploadId, MediaUploadStatusDto.Status status, String url, String thumbnailUrl,
+                                    BusinessRuleException error) {
+
+        static ImageUploadResult of(MediaUploadStatusDto status) {
+            return new ImageUploadResult(status.getUploadId(), status.getStatus(), status.getUrl(), status.getThumbnailUrl(), null);
+        }
+
+        static ImageUploadResult failed(Throwable ex) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (!(cause instanceof BusinessRuleException)) {
+                log.error("Image upload failed", cause);
+            }
+            BusinessRuleException error = cause instanceof BusinessRuleException bre
+                    ? bre
+                    : new BusinessRuleException("Failed to upload image. Please try again.",
+                                                "فشل رفع الصورة. يرجى المحاولة مرة أخرى.");
+            return new ImageUploadResult(null, MediaUploadStatusDto.Status.FAILED, null, null, error);
+        }
+    }
 }
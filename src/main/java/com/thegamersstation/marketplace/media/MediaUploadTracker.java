@@ -0,0 +1,142 @@
+package com.thegamersstation.marketplace.media;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thegamersstation.marketplace.media.dto.MediaUploadStatusDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Tracks in-flight image uploads so clients can poll for renditions and so callers that
+ * persist image URLs can tell whether a thumbnail exists yet.
+ *
+ * <p>Entries are short-lived: once a client has the URLs, the database is the source of truth.</p>
+ */
+@Slf4j
+@Component
+public class MediaUploadTracker {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Cache<String, Tracked> uploadsById = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private final Cache<String, String> uploadIdsByUrl = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public MediaUploadTracker(SimpMessagingTemplate messagingTemplate, ApplicationEventPublisher eventPublisher) {
+        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Register an upload whose original is stored and whose renditions are pending.
+     */
+    public MediaUploadStatusDto start(String originalUrl, Long ownerId) {
+        MediaUploadStatusDto status = MediaUploadStatusDto.builder()
+                .uploadId(UUID.randomUUID().toString())
+                .status(MediaUploadStatusDto.Status.PROCESSING)
+                .url(originalUrl)
+                .thumbnailUrl(originalUrl)
+                .build();
+        uploadsById.put(status.getUploadId(), new Tracked(status, ownerId));
+        uploadIdsByUrl.put(originalUrl, status.getUploadId());
+        return status;
+    }
+
+    /**
+     * Register an upload that has no asynchronous work: local storage, or content that
+     * was already stored with the given renditions.
+     */
+    public MediaUploadStatusDto completed(String originalUrl, List<Integer> renditionWidths, String placeholder,
+                                          Long ownerId) {
+        String widths = ImageRenditions.formatWidths(renditionWidths);
+        MediaUploadStatusDto status = MediaUploadStatusDto.builder()
+                .uploadId(UUID.randomUUID().toString())
+                .status(MediaUploadStatusDto.Status.READY)
+                .url(originalUrl)
+                .thumbnailUrl(widths != null
+                        ? ImageRenditions.deriveUrl(originalUrl, ImageRenditions.THUMBNAIL_WIDTH)
+                        : originalUrl)
+                .renditions(ImageRenditions.toDtos(originalUrl, widths))
+                .placeholder(placeholder)
+                .build();
+        uploadsById.put(status.getUploadId(), new Tracked(status, ownerId));
+        uploadIdsByUrl.put(originalUrl, status.getUploadId());
+        return status;
+    }
+
+    /**
+     * Record that the given renditions (including the thumbnail) have been stored.
+     */
+    public void markReady(String uploadId, List<Integer> renditionWidths, String placeholder) {
+        Tracked tracked = update(uploadId, status -> status.toBuilder()
+                .status(MediaUploadStatusDto.Status.READY)
+                .thumbnailUrl(ImageRenditions.deriveUrl(status.getUrl(), ImageRenditions.THUMBNAIL_WIDTH))
+                .renditions(ImageRenditions.toDtos(status.getUrl(), ImageRenditions.formatWidths(renditionWidths)))
+                .placeholder(placeholder)
+                .build());
+        if (tracked != null) {
+            MediaUploadStatusDto status = tracked.status();
+            eventPublisher.publishEvent(new MediaRenditionsReadyEvent(
+                    status.getUrl(), status.getThumbnailUrl(), ImageRenditions.formatWidths(renditionWidths),
+                    placeholder));
+        }
+    }
+
+    public void markFailed(String uploadId) {
+        update(uploadId, status -> status.toBuilder()
+                .status(MediaUploadStatusDto.Status.FAILED)
+                .build());
+    }
+
+    /**
+     * Status of an upload, visible only to the user who made it.
+     */
+    public MediaUploadStatusDto get(String uploadId, Long requesterId) {
+        Tracked tracked = uploadsById.getIfPresent(uploadId);
+        if (tracked == null || (tracked.ownerId() != null && !tracked.ownerId().equals(requesterId))) {
+            return null;
+        }
+        return tracked.status();
+    }
+
+    /**
+     * Tracked status for an original URL, or null if it isn't (or is no longer) tracked.
+     */
+    public MediaUploadStatusDto findByUrl(String originalUrl) {
+        String uploadId = uploadIdsByUrl.getIfPresent(originalUrl);
+        if (uploadId == null) {
+            return null;
+        }
+        Tracked tracked = uploadsById.getIfPresent(uploadId);
+        return tracked != null ? tracked.status() : null;
+    }
+
+    private Tracked update(String uploadId, UnaryOperator<MediaUploadStatusDto> change) {
+        Tracked updated = uploadsById.asMap().computeIfPresent(uploadId, (id, tracked) -> new Tracked(
+                change.apply(tracked.status()), tracked.ownerId()));
+        if (updated != null && updated.ownerId() != null) {
+            try {
+                messagingTemplate.convertAndSendToUser(updated.ownerId().toString(), "/queue/media", updated.status());
+            } catch (Exception e) {
+                log.error("Failed to push media status for upload {}", uploadId, e);
+            }
+        }
+        return updated;
+    }
+
+    private record Tracked(MediaUploadStatusDto status, Long ownerId) {}
+}
@@ -0,0 +1,45 @@
+package com.thegamersstation.marketplace.media;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A direct upload issued to a user and not yet confirmed.
+ */
+@Entity
+@Table(name = "pending_direct_uploads")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingDirectUpload {
+
+    @Id
+    @Column(name = "storage_key", length = 300)
+    private String storageKey;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    /**
+     * Outlives the presigned URL so a slow client can still confirm after its PUT
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Set while a confirm is running; a confirm that died (e.g. with its node) is taken over once it passes
+     */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
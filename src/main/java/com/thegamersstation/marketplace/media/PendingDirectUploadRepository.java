@@ -0,0 +1,31 @@
+package com.thegamersstation.marketplace.media;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PendingDirectUploadRepository extends JpaRepository<PendingDirectUpload, String> {
+
+    @Modifying
+    @Query("UPDATE PendingDirectUpload p SET p.claimedUntil = :until WHERE p.storageKey = :key " +
+           "AND p.ownerId = :ownerId AND p.expiresAt > :now AND (p.claimedUntil IS NULL OR p.claimedUntil <= :now)")
+    int claim(@Param("key") String key, @Param("ownerId") Long ownerId,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE PendingDirectUpload p SET p.claimedUntil = NULL WHERE p.storageKey = :key")
+    int unclaim(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM PendingDirectUpload p WHERE p.storageKey = :key")
+    int remove(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM PendingDirectUpload p WHERE p.expiresAt <= :now AND (p.claimedUntil IS NULL OR p.claimedUntil <= :now)")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
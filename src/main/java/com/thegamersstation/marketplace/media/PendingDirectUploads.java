@@ -0,0 +1,78 @@
+package com.thegamersstation.marketplace.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Direct uploads issued but not yet confirmed, kept in the database so any instance can confirm
+ * them and they survive restarts. A confirm {@link #claim claims} its upload first: the claim is a
+ * conditional UPDATE, so of two concurrent confirms for the same key only one proceeds.
+ */
+@Slf4j
+@Component
+public class PendingDirectUploads {
+
+    /** How long an issued upload can be confirmed */
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private final PendingDirectUploadRepository repository;
+    private final Duration claimTtl;
+
+    public PendingDirectUploads(
+            PendingDirectUploadRepository repository,
+            @Value("${media.direct-upload.claim-ttl-seconds:300}") long claimTtlSeconds
+    ) {
+        this.repository = repository;
+        this.claimTtl = Duration.ofSeconds(claimTtlSeconds);
+    }
+
+    @Transactional
+    public void register(String key, Long ownerId) {
+        repository.save(PendingDirectUpload.builder()
+                .storageKey(key)
+                .ownerId(ownerId)
+                .expiresAt(LocalDateTime.now().plus(TTL))
+                .build());
+    }
+
+    /**
+     * Claim the upload for a confirm. False if it is unknown, expired, owned by someone else
+     * or being confirmed right now.
+     */
+    @Transactional
+    public boolean claim(String key, Long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return repository.claim(key, ownerId, now, now.plus(claimTtl)) == 1;
+    }
+
+    /**
+     * Give a claimed upload back, so the client can confirm again (e.g. after finishing its PUT).
+     */
+    @Transactional
+    public void unclaim(String key) {
+        repository.unclaim(key);
+    }
+
+    /**
+     * Forget the upload: it was accepted or rejected.
+     */
+    @Transactional
+    public void remove(String key) {
+        repository.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${media.direct-upload.purge-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired direct uploads", purged);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.thegamersstation.marketplace.media;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded disk cache for on-demand renditions.
+ *
+ * <p>Files live under media.render-cache.dir; an in-memory index (Caffeine, weighted by file
+ * size in KB) decides what to evict, and evicted files are deleted from disk. Concurrent
+ * requests for a missing key share one generation (single flight). The index is rebuilt from
+ * the directory on startup, so the cache survives restarts.</p>
+ */
+@Slf4j
+@Component
+public class RenditionCache {
+
+    private static final String PARTIAL_PREFIX = ".partial-";
+
+    private final Path cacheDir;
+    private final AsyncCache<String, Path> index;
+
+    public RenditionCache(
+            @Value("${media.render-cache.dir:${java.io.tmpdir}/render-cache}") String cacheDir,
+            @Value("${media.render-cache.max-size-mb:1024}") long maxSizeMb
+    ) throws IOException {
+        this.cacheDir = Paths.get(cacheDir).normalize().toAbsolutePath();
+        Files.createDirectories(this.cacheDir);
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024)
+                .weigher((String key, Path file) -> weightKb(file))
+                .removalListener((String key, Path file, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && file != null) {
+                        deleteQuietly(file);
+                    }
+                })
+                .buildAsync();
+        loadExisting();
+    }
+
+    /**
+     * Cached file for the key, generating it on a miss. The generator writes to the path it is
+     * given; the file is moved into place only once it completes, so readers never see a partial file.
+     * @param key relative cache path, e.g. "w800/posts/&lt;hash&gt;.jpg"
+     */
+    public CompletableFuture<Path> get(String key, Function<Path, CompletableFuture<Void>> generator) {
+        Path target = resolve(key);
+        return index.get(key, (ignored, executor) -> generate(target, generator))
+                .thenCompose(file -> {
+                    if (Files.exists(file)) {
+                        return CompletableFuture.completedFuture(file);
+                    }
+                    // Removed behind our back (e.g. tmp cleaner); regenerate once
+                    index.synchronous().invalidate(key);
+                    return index.get(key, (ignored, executor) -> generate(target, generator));
+                });
+    }
+
+    private CompletableFuture<Path> generate(Path target, Function<Path, CompletableFuture<Void>> generator) {
+        Path partial;
+        try {
+            Files.createDirectories(target.getParent());
+            partial = target.resolveSibling(PARTIAL_PREFIX + UUID.randomUUID());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        return generator.apply(partial)
+                .thenApply(ignored -> {
+                    try {
+                        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        return target;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((file, ex) -> {
+                    if (ex != null) {
+                        deleteQuietly(partial);
+                    }
+                });
+    }
+
+    private Path resolve(String key) {
+        Path file = cacheDir.resolve(key).normalize();
+        if (!file.startsWith(cacheDir) || file.equals(cacheDir)) {
+            throw new IllegalArgumentException("Invalid cache key: " + key);
+        }
+        return file;
+    }
+
+    /**
+     * Index files left from a previous run; leftovers of interrupted generations are removed.
+     */
+    private void loadExisting() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                if (file.getFileName().toString().startsWith(PARTIAL_PREFIX)) {
+                    deleteQuietly(file);
+                } else {
+                    String key = cacheDir.relativize(file).toString().replace('\\', '/');
+                    index.put(key, CompletableFuture.completedFuture(file));
+                }
+            });
+        }
+        log.info("Rendition cache at {} holds {} file(s)", cacheDir, index.synchronous().estimatedSize());
+    }
+
+    private static int weightKb(Path file) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, Files.size(file) / 1024));
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached rendition: {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.thegamersstation.marketplace.media.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Image formats the media pipeline can read and write.
+ *
+ * <p>Decoding and encoding go through the ImageIO service registry, so a format is supported when
+ * its plugin is on the classpath: the JDK covers JPEG, PNG and GIF, imageio-webp adds a pure-Java
+ * WebP reader and webp-imageio a WebP writer backed by a native libwebp. webp-imageio registers a
+ * native reader as well; it is deregistered so WebP sources are always decoded by the pure-Java one.
+ * Renditions are written as media.renditions.format (webp by default); when its writer is missing
+ * or fails the startup probe (see {@link ImageIOEncoder#isAvailable()}), or the format is "source",
+ * they keep the encoding of the original (JPEG, or PNG/GIF). The native libwebp needs glibc, which
+ * is why the runtime image is not Alpine-based.</p>
+ */
+@Slf4j
+@Component
+public class ImageCodecs {
+
+    private static final ImageIOEncoder WEBP = new ImageIOEncoder("webp", "image/webp", true, true);
+    private static final ImageIOEncoder JPEG = new ImageIOEncoder("jpeg", "image/jpeg", true, false);
+    private static final ImageIOEncoder PNG = new ImageIOEncoder("png", "image/png", false, true);
+    private static final ImageIOEncoder GIF = new ImageIOEncoder("gif", "image/gif", false, true);
+
+    /**
+     * Package of the pure-Java WebP reader (imageio-webp).
+     */
+    private static final String PURE_JAVA_WEBP_READER_PACKAGE = "com.twelvemonkeys.imageio.plugins.webp.";
+
+    /**
+     * Image file signatures (magic bytes) for content verification.
+     */
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 0x50, 0x4E, 0x47};
+    private static final byte[] GIF87_SIGNATURE = {0x47, 0x49, 0x46, 0x38, 0x37};
+    private static final byte[] GIF89_SIGNATURE = {0x47, 0x49, 0x46, 0x38, 0x39};
+    private static final byte[] RIFF_SIGNATURE = {0x52, 0x49, 0x46, 0x46};
+    private static final byte[] WEBP_FOURCC = {0x57, 0x45, 0x42, 0x50};
+
+    /**
+     * Bytes needed by {@link #detectContentType(byte[])}.
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    /**
+     * Encoder used for every rendition, or null to follow the source format.
+     */
+    private final ImageEncoder renditionEncoder;
+
+    public ImageCodecs(@Value("${media.renditions.format:webp}") String format) {
+        pinWebPReader();
+        this.renditionEncoder = switch (format.toLowerCase()) {
+            case "source" -> null;
+            case "webp" -> WEBP.isAvailable() ? WEBP : null;
+            case "jpeg", "jpg" -> JPEG;
+            case "png" -> PNG;
+            default -> throw new IllegalArgumentException("Unsupported media.renditions.format: " + format);
+        };
+        if (renditionEncoder == null && "webp".equalsIgnoreCase(format)) {
+            log.warn("No usable WebP ImageIO writer - renditions keep the source format");
+        } else {
+            log.info("Renditions encoded as {}", renditionEncoder != null ? renditionEncoder.format() : "source format");
+        }
+    }
+
+    /**
+     * Leave the pure-Java reader as the only WebP reader, so which one ImageIO picks doesn't depend
+     * on classpath order and decoding never loads the native library.
+     */
+    private static void pinWebPReader() {
+        IIORegistry registry = IIORegistry.getDefaultInstance();
+        List<ImageReaderSpi> webpReaders = new ArrayList<>();
+        registry.getServiceProviders(ImageReaderSpi.class,
+                provider -> Arrays.stream(((ImageReaderSpi) provider).getFormatNames()).anyMatch("webp"::equalsIgnoreCase),
+                true).forEachRemaining(webpReaders::add);
+        if (webpReaders.stream().noneMatch(ImageCodecs::isPureJavaWebPReader)) {
+            log.warn("Pure-Java WebP reader not installed - WebP sources use {}", webpReaders);
+            return;
+        }
+        webpReaders.stream()
+                .filter(reader -> !isPureJavaWebPReader(reader))
+                .forEach(reader -> registry.deregisterServiceProvider(reader, ImageReaderSpi.class));
+    }
+
+    private static boolean isPureJavaWebPReader(ImageReaderSpi reader) {
+        return reader.getClass().getName().startsWith(PURE_JAVA_WEBP_READER_PACKAGE);
+    }
+
+    /**
+     * Encoder for renditions of a source with the given file extension.
+     */
+    public ImageEncoder renditionEncoder(String sourceExtension) {
+        if (renditionEncoder != null) {
+            return renditionEncoder;
+        }
+        return switch (sourceExtension.toLowerCase()) {
+            case "png" -> PNG;
+            case "gif" -> GIF;
+            default -> JPEG;
+        };
+    }
+
+    /**
+     * Content type from the file signature, or empty when it is not a supported image.
+     * WebP needs the "WEBP" form type after the RIFF header; other RIFF files (WAV, AVI) are rejected.
+     * @param header first {@value #HEADER_LENGTH} bytes of the file (or fewer if it is shorter)
+     */
+    public static Optional<String> detectContentType(byte[] header) {
+        if (startsWith(header, 0, JPEG_SIGNATURE)) {
+            return Optional.of("image/jpeg");
+        }
+        if (startsWith(header, 0, PNG_SIGNATURE)) {
+            return Optional.of("image/png");
+        }
+        if (startsWith(header, 0, GIF87_SIGNATURE) || startsWith(header, 0, GIF89_SIGNATURE)) {
+            return Optional.of("image/gif");
+        }
+        if (startsWith(header, 0, RIFF_SIGNATURE) && startsWith(header, 8, WEBP_FOURCC)) {
+            return Optional.of("image/webp");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        if (data.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.thegamersstation.marketplace.media.codec;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a decoded image in one output format.
+ */
+public interface ImageEncoder {
+
+    /**
+     * ImageIO format name, e.g. "webp".
+     */
+    String format();
+
+    /**
+     * MIME type of the encoded output, e.g. "image/webp".
+     */
+    String contentType();
+
+    /**
+     * @param quality 0..1 for lossy formats; ignored by lossless ones
+     */
+    void encode(BufferedImage image, float quality, OutputStream out) throws IOException;
+}
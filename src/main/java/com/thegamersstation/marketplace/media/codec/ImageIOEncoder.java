@@ -0,0 +1,110 @@
+package com.thegamersstation.marketplace.media.codec;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Encoder backed by whichever ImageIO writer is registered for the format, so codecs are added by
+ * putting an ImageIO plugin on the classpath (e.g. WebP) rather than by code changes.
+ */
+@Slf4j
+public class ImageIOEncoder implements ImageEncoder {
+
+    private final String formatName;
+    private final String contentType;
+    private final boolean lossy;
+    private final boolean supportsAlpha;
+
+    public ImageIOEncoder(String formatName, String contentType, boolean lossy, boolean supportsAlpha) {
+        this.formatName = formatName;
+        this.contentType = contentType;
+        this.lossy = lossy;
+        this.supportsAlpha = supportsAlpha;
+    }
+
+    /**
+     * Whether an ImageIO writer for this format is installed and works here. Registration alone
+     * isn't enough: a writer wrapping a native library (the WebP one bundles a glibc libwebp)
+     * registers fine and fails with a LinkageError on first use where the library can't load,
+     * e.g. on Alpine/musl. Probed by encoding a 1x1 image.
+     */
+    public boolean isAvailable() {
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            return false;
+        }
+        try {
+            encode(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), 0.75f, OutputStream.nullOutputStream());
+            return true;
+        } catch (IOException | RuntimeException | LinkageError e) {
+            log.warn("ImageIO {} writer is installed but cannot encode: {}", formatName, e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public String format() {
+        return formatName;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public void encode(BufferedImage image, float quality, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No ImageIO writer for " + formatName);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (lossy && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0) {
+                    // WebP writers offer "Lossless" and "Lossy"; JPEG only "JPEG"
+                    param.setCompressionType(Arrays.stream(types)
+                            .filter(type -> !type.toLowerCase().contains("lossless"))
+                            .findFirst()
+                            .orElse(types[0]));
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(prepare(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Flatten transparency onto white for formats without alpha (the JPEG writer rejects ARGB).
+     */
+    private BufferedImage prepare(BufferedImage image) {
+        if (supportsAlpha || !image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+}
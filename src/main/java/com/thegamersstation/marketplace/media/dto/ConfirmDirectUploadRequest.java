@@ -0,0 +1,14 @@
+package com.thegamersstation.marketplace.media.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ConfirmDirectUploadRequest {
+
+    /**
+     * Storage key returned when the direct upload was created
+     */
+    @NotBlank(message = "Key is required")
+    private String key;
+}
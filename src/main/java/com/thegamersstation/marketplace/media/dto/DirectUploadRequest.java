@@ -0,0 +1,23 @@
+package com.thegamersstation.marketplace.media.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class DirectUploadRequest {
+
+    @NotBlank(message = "Folder is required")
+    private String folder;
+
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+
+    /**
+     * Exact size of the file in bytes; the presigned URL only accepts this length
+     */
+    @NotNull(message = "Content length is required")
+    @Positive(message = "Content length must be greater than 0")
+    private Long contentLength;
+}
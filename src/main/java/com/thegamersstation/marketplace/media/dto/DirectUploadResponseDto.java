@@ -0,0 +1,37 @@
+package com.thegamersstation.marketplace.media.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+public class DirectUploadResponseDto {
+
+    /**
+     * Storage key to pass to POST /media/direct-uploads/confirm once the PUT succeeded
+     */
+    private String key;
+
+    /**
+     * Presigned URL the client uploads the file to
+     */
+    private String uploadUrl;
+
+    /**
+     * HTTP method for the upload (PUT)
+     */
+    private String method;
+
+    /**
+     * Headers that must be sent with the upload exactly as given
+     */
+    private Map<String, String> headers;
+
+    /**
+     * When the upload URL stops being accepted
+     */
+    private Instant expiresAt;
+}
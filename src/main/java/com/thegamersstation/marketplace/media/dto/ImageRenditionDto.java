@@ -0,0 +1,19 @@
+package com.thegamersstation.marketplace.media.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resized copy of an image, for building srcset")
+public class ImageRenditionDto {
+
+    @Schema(description = "Rendition width in pixels", example = "800")
+    private Integer width;
+
+    @Schema(description = "Public URL of the rendition")
+    private String url;
+}
@@ -1,11 +1,22 @@
 package com.thegamersstation.marketplace.media.dto;
 
+import com.thegamersstation.marketplace.media.dto.MediaUploadStatusDto.Status;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
 public class ImageUploadResponseDto {
+
+    /**
+     * Upload ID for polling GET /media/uploads/{uploadId}
+     */
+    private String uploadId;
+
+    /**
+     * Rendition processing status (PROCESSING until the thumbnail is stored)
+     */
+    private Status status;
     
     /**
      * Public URL of uploaded image (original size)
@@ -13,7 +24,7 @@ public class ImageUploadResponseDto {
     private String url;
 
     /**
-     * Public URL of the thumbnail (400px wide)
+     * Public URL of the thumbnail (400px wide); the original URL until status is READY
      */
     private String thumbnailUrl;
     
@@ -31,4 +42,9 @@ public class ImageUploadResponseDto {
      * Content type (MIME type)
      */
     private String contentType;
+
+    /**
+     * Error message when this file failed in a multi-file upload (status FAILED, no URLs)
+     */
+    private String error;
 }
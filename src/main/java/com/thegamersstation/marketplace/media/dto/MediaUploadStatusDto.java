@@ -0,0 +1,45 @@
+package com.thegamersstation.marketplace.media.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Schema(description = "Processing state of an uploaded image and its renditions")
+public class MediaUploadStatusDto {
+
+    @Schema(description = "Upload ID returned by /media/upload", example = "3f1c2b7e-8d4a-4c55-9a10-2f8e6b1d0c9a")
+    private String uploadId;
+
+    @Schema(description = "Rendition processing status", example = "PROCESSING")
+    private Status status;
+
+    @Schema(description = "Public URL of the original image (usable immediately)")
+    private String url;
+
+    @Schema(description = "Public URL of the thumbnail; equals url until status is READY")
+    private String thumbnailUrl;
+
+    @Schema(description = "Resized renditions for srcset; empty until status is READY")
+    @Builder.Default
+    private List<ImageRenditionDto> renditions = List.of();
+
+    @Schema(description = "BlurHash placeholder to show while the image loads; null until status is READY")
+    private String placeholder;
+
+    public enum Status {
+        /** Original stored, renditions still being generated */
+        PROCESSING,
+        /** All renditions stored */
+        READY,
+        /** Rendition generation failed; the original is still served at url */
+        FAILED
+    }
+}
@@ -0,0 +1,107 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import com.thegamersstation.marketplace.media.MediaDeletionTask;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps objects on the heap. Meant for tests, benchmarks and local experiments
+ * (media.storage.provider=memory); contents are lost on restart.
+ */
+public class InMemoryMediaStorage implements MediaStorage {
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final String baseUrl;
+
+    public InMemoryMediaStorage(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public MediaDeletionTask.Provider provider() {
+        return MediaDeletionTask.Provider.MEMORY;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Path source, String contentType) {
+        try {
+            byte[] content = Files.readAllBytes(source);
+            objects.put(key, new StoredObject(content, contentType, Instant.now()));
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> get(String key, Path destination) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(new NoSuchFileException(key)));
+        }
+        try {
+            Files.write(destination, object.content());
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObjectMetadata>> head(String key) {
+        return CompletableFuture.completedFuture(Optional.ofNullable(objects.get(key))
+                .map(object -> new StoredObjectMetadata(object.content().length, object.contentType(),
+                        HexFormat.of().toHexDigits(Arrays.hashCode(object.content())),
+                        object.lastModified())));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        objects.remove(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> batchDelete(List<String> keys) {
+        keys.forEach(objects::remove);
+        return CompletableFuture.completedFuture(Map.of());
+    }
+
+    @Override
+    public CompletableFuture<Void> list(String prefix, Consumer<ListedObject> consumer) {
+        objects.forEach((key, object) -> {
+            if (key.startsWith(prefix)) {
+                consumer.accept(new ListedObject(key, object.content().length, object.lastModified()));
+            }
+        });
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public String url(String key) {
+        return baseUrl + "/" + key;
+    }
+
+    @Override
+    public Optional<String> keyForUrl(String url) {
+        if (url == null || !url.startsWith(baseUrl + "/")) {
+            return Optional.empty();
+        }
+        return Optional.of(url.substring(baseUrl.length() + 1));
+    }
+
+    private record StoredObject(byte[] content, String contentType, Instant lastModified) {}
+}
@@ -0,0 +1,8 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import java.time.Instant;
+
+/**
+ * An object reported by {@link MediaStorage#list}.
+ */
+public record ListedObject(String key, long size, Instant lastModified) {}
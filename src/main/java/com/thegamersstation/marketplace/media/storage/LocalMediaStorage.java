@@ -0,0 +1,240 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import com.thegamersstation.marketplace.media.MediaDeletionTask;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Stores media as files under the local upload directory, served by the app itself.
+ * File operations run on the given executor so callers never block on disk I/O.
+ *
+ * <p>Files are sharded by the first two byte pairs of their name, so "posts/ab12cd.jpg" is stored
+ * as "posts/ab/12/ab12cd.jpg" and no directory grows to millions of entries. Keys and URLs stay
+ * unsharded. Files written before sharding are still found at their flat path.</p>
+ */
+@Slf4j
+public class LocalMediaStorage implements MediaStorage {
+
+    private final Path uploadRoot;
+    private final String baseUrl;
+    private final Executor executor;
+
+    public LocalMediaStorage(String uploadDir, String baseUrl, Executor executor) {
+        this.uploadRoot = Paths.get(uploadDir).normalize().toAbsolutePath();
+        this.baseUrl = baseUrl;
+        this.executor = executor;
+    }
+
+    @Override
+    public MediaDeletionTask.Provider provider() {
+        return MediaDeletionTask.Provider.LOCAL;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Path source, String contentType) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Path target = resolve(key);
+                Files.createDirectories(target.getParent());
+                // Copy to a sibling temp file and rename, so readers never see a partial file
+                Path partial = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+                try {
+                    Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(partial);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> get(String key, Path destination) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Path file = findFile(key).orElseThrow(() -> new NoSuchFileException(key));
+                Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObjectMetadata>> head(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Path> found = findFile(key);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+            Path file = found.get();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return Optional.of(new StoredObjectMetadata(attributes.size(), Files.probeContentType(file),
+                        null, attributes.lastModifiedTime().toInstant()));
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return batchDelete(List.of(key)).thenAccept(failed -> {
+            if (!failed.isEmpty()) {
+                throw new UncheckedIOException(new IOException(failed.get(key)));
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> batchDelete(List<String> keys) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, String> failed = new HashMap<>();
+            for (String key : keys) {
+                try {
+                    Files.deleteIfExists(resolve(key));
+                    Files.deleteIfExists(resolveFlat(key));
+                } catch (IllegalArgumentException e) {
+                    // Not a key of ours; nothing to delete
+                    log.warn("Path traversal attempt in delete: {}", key);
+                } catch (IOException e) {
+                    failed.put(key, e.getMessage());
+                }
+            }
+            log.info("Deleted {} file(s) from local storage ({} failed)", keys.size() - failed.size(), failed.size());
+            return failed;
+        }, executor);
+    }
+
+    /**
+     * Walk the directory holding the prefix. Sharded paths are reported under their unsharded key;
+     * hidden files (in-progress writes) are skipped.
+     */
+    @Override
+    public CompletableFuture<Void> list(String prefix, Consumer<ListedObject> consumer) {
+        return CompletableFuture.runAsync(() -> {
+            Path start = uploadRoot.resolve(prefix).normalize();
+            if (!start.startsWith(uploadRoot)) {
+                throw new IllegalArgumentException("Invalid prefix: " + prefix);
+            }
+            if (!Files.isDirectory(start)) {
+                start = start.getParent();
+            }
+            if (start == null || !Files.isDirectory(start)) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(start)) {
+                files.forEach(file -> {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(".")) {
+                        return;
+                    }
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        String key = keyOf(file);
+                        if (attributes.isRegularFile() && key.startsWith(prefix)) {
+                            consumer.accept(new ListedObject(key, attributes.size(),
+                                    attributes.lastModifiedTime().toInstant()));
+                        }
+                    } catch (NoSuchFileException e) {
+                        // Deleted while walking
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public String url(String key) {
+        return baseUrl + "/" + key;
+    }
+
+    @Override
+    public Optional<String> keyForUrl(String url) {
+        if (url == null || !url.startsWith(baseUrl + "/")) {
+            return Optional.empty();
+        }
+        return Optional.of(url.substring(baseUrl.length() + 1));
+    }
+
+    /**
+     * File holding a key: the sharded path, or the flat path for files stored before sharding.
+     * Empty if neither exists or the key is invalid.
+     */
+    public Optional<Path> findFile(String key) {
+        try {
+            Path sharded = resolve(key);
+            if (Files.isRegularFile(sharded)) {
+                return Optional.of(sharded);
+            }
+            Path flat = resolveFlat(key);
+            return Files.isRegularFile(flat) ? Optional.of(flat) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Key of a stored file: "folder/ab/12/ab12cd.jpg" -> "folder/ab12cd.jpg", flat paths as they are.
+     */
+    private String keyOf(Path file) {
+        Path relative = uploadRoot.relativize(file);
+        String name = relative.getFileName().toString();
+        int count = relative.getNameCount();
+        if (name.length() >= 4 && count >= 3
+                && relative.getName(count - 3).toString().equals(name.substring(0, 2))
+                && relative.getName(count - 2).toString().equals(name.substring(2, 4))) {
+            relative = count == 3 ? Path.of(name) : relative.subpath(0, count - 3).resolve(name);
+        }
+        return relative.toString().replace('\\', '/');
+    }
+
+    /**
+     * Sharded location of a key: "folder/ab12cd.jpg" -> "folder/ab/12/ab12cd.jpg".
+     */
+    private Path resolve(String key) {
+        Path flat = resolveFlat(key);
+        String name = flat.getFileName().toString();
+        if (name.length() < 4) {
+            return flat;
+        }
+        return flat.resolveSibling(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    /**
+     * Resolve a key to its unsharded path, rejecting keys that escape the upload root (path traversal)
+     * and hidden names such as in-progress writes.
+     */
+    private Path resolveFlat(String key) {
+        Path file = uploadRoot.resolve(key).normalize();
+        if (!file.startsWith(uploadRoot) || file.equals(uploadRoot) || file.getFileName().toString().startsWith(".")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import com.thegamersstation.marketplace.media.MediaDeletionTask;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Object storage for uploaded media, addressed by key (e.g. "posts/&lt;sha256&gt;.jpg").
+ *
+ * <p>Every operation returns a future so callers compose storage I/O instead of
+ * parking a request thread on it. Futures may complete on the backend's own I/O
+ * threads; hop to an executor before doing blocking work in a continuation.</p>
+ */
+public interface MediaStorage {
+
+    /**
+     * Backend identifier, also recorded on queued deletions.
+     */
+    MediaDeletionTask.Provider provider();
+
+    /**
+     * Store a file under the given key, replacing any existing object. The source file is left in place.
+     */
+    CompletableFuture<Void> put(String key, Path source, String contentType);
+
+    /**
+     * Copy an object into the given file, replacing it. Fails if the key does not exist.
+     */
+    CompletableFuture<Void> get(String key, Path destination);
+
+    /**
+     * Object metadata, or empty if the key does not exist.
+     */
+    CompletableFuture<Optional<StoredObjectMetadata>> head(String key);
+
+    /**
+     * Delete a single key. Missing keys count as deleted.
+     */
+    CompletableFuture<Void> delete(String key);
+
+    /**
+     * Delete many keys at once. Missing keys count as deleted.
+     * @return keys that could not be deleted, mapped to the error message
+     */
+    CompletableFuture<Map<String, String>> batchDelete(List<String> keys);
+
+    /**
+     * Report every object whose key starts with the prefix to the consumer, in no particular order.
+     * The consumer may run on backend I/O threads and must not block.
+     * The future completes once all objects have been reported.
+     */
+    CompletableFuture<Void> list(String prefix, Consumer<ListedObject> consumer);
+
+    /**
+     * Public URL for a key.
+     */
+    String url(String key);
+
+    /**
+     * Key for a public URL served by this backend, or empty if the URL belongs elsewhere.
+     */
+    Optional<String> keyForUrl(String url);
+
+    /**
+     * Presigned PUT for uploading an object straight to the backend, bound to the given content
+     * type and length. Empty if the backend cannot accept direct uploads.
+     */
+    default Optional<PresignedPut> presignPut(String key, String contentType, long contentLength, Duration ttl) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,9 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A time-limited URL the client PUTs an object to directly, with the headers it must send unchanged.
+ */
+public record PresignedPut(String url, Map<String, String> headers, Instant expiresAt) {}
@@ -0,0 +1,229 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import com.thegamersstation.marketplace.media.MediaDeletionTask;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * S3 backend on the non-blocking {@link S3AsyncClient}. Requests are multiplexed over the
+ * client's pooled Netty connections, so no thread waits on the network while a transfer is in flight.
+ * Objects are served through CloudFront when a domain is configured.
+ */
+@Slf4j
+public class S3MediaStorage implements MediaStorage, AutoCloseable {
+
+    /** DeleteObjects accepts at most 1000 keys per request */
+    private static final int MAX_DELETE_KEYS = 1000;
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final S3AsyncClient s3Client;
+    private final S3Presigner presigner;
+    private final String bucketName;
+    private final String region;
+    private final String cloudFrontDomain;
+
+    public S3MediaStorage(S3AsyncClient s3Client, S3Presigner presigner, String bucketName, String region,
+                          String cloudFrontDomain) {
+        this.s3Client = s3Client;
+        this.presigner = presigner;
+        this.bucketName = bucketName;
+        this.region = region;
+        this.cloudFrontDomain = cloudFrontDomain;
+    }
+
+    @Override
+    public MediaDeletionTask.Provider provider() {
+        return MediaDeletionTask.Provider.S3;
+    }
+
+    /**
+     * Stream a file to S3 with a known content length.
+     * Objects are capped by media.max-size-mb, well below the size where multipart upload pays off.
+     */
+    @Override
+    public CompletableFuture<Void> put(String key, Path source, String contentType) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .cacheControl(CACHE_CONTROL)
+                .build();
+        return s3Client.putObject(request, AsyncRequestBody.fromFile(source))
+                .thenApply(response -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> get(String key, Path destination) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        return s3Client.getObject(request, AsyncResponseTransformer.toFile(destination,
+                        FileTransformerConfiguration.defaultCreateOrReplaceExisting()))
+                .thenApply(response -> null);
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObjectMetadata>> head(String key) {
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        return s3Client.headObject(request)
+                .thenApply(response -> Optional.of(new StoredObjectMetadata(response.contentLength(),
+                        response.contentType(), response.eTag(), response.lastModified())))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof NoSuchKeyException
+                            || (cause instanceof S3Exception s3Exception && s3Exception.statusCode() == 404)) {
+                        return Optional.empty();
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        return s3Client.deleteObject(request).thenApply(response -> null);
+    }
+
+    /**
+     * Delete keys with DeleteObjects, one request per 1000 keys, all in flight at once.
+     */
+    @Override
+    public CompletableFuture<Map<String, String>> batchDelete(List<String> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+
+        List<CompletableFuture<DeleteObjectsResponse>> requests = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_KEYS) {
+            List<ObjectIdentifier> objects = keys.subList(from, Math.min(keys.size(), from + MAX_DELETE_KEYS)).stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            requests.add(s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build()));
+        }
+
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, String> failed = new HashMap<>();
+                    requests.forEach(request -> request.join().errors()
+                            .forEach(error -> failed.put(error.key(), error.code() + ": " + error.message())));
+                    log.info("Deleted {} object(s) from S3 ({} failed)", keys.size() - failed.size(), failed.size());
+                    return failed;
+                });
+    }
+
+    /**
+     * Page through ListObjectsV2 (1000 keys per page). The paginator requests the next page
+     * only once the consumer has seen the current one.
+     */
+    @Override
+    public CompletableFuture<Void> list(String prefix, Consumer<ListedObject> consumer) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .build();
+        return s3Client.listObjectsV2Paginator(request).contents()
+                .subscribe(object -> consumer.accept(new ListedObject(object.key(), object.size(), object.lastModified())));
+    }
+
+    /**
+     * Public URL for an S3 key, via CloudFront when configured.
+     */
+    @Override
+    public String url(String key) {
+        if (cloudFrontDomain != null && !cloudFrontDomain.isBlank()) {
+            return "https://" + cloudFrontDomain + "/" + key;
+        }
+        return String.format("https://%s.s3.%s.amazonaws.com/", bucketName, region) + key;
+    }
+
+    /**
+     * Extract the S3 key from a CloudFront or S3 URL.
+     * Example URLs:
+     * - CloudFront: https://d111111abcdef8.cloudfront.net/ads/uuid.jpg
+     * - S3: https://bucket-name.s3.region.amazonaws.com/ads/uuid.jpg
+     */
+    @Override
+    public Optional<String> keyForUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return Optional.empty();
+        }
+
+        // Configured CloudFront domain (may be a custom CNAME)
+        if (cloudFrontDomain != null && !cloudFrontDomain.isBlank()
+                && url.startsWith("https://" + cloudFrontDomain + "/")) {
+            return Optional.of(url.substring(("https://" + cloudFrontDomain + "/").length()));
+        }
+
+        // CloudFront URL pattern: https://domain.cloudfront.net/path/to/file.jpg -> path/to/file.jpg
+        if (url.contains("cloudfront.net/")) {
+            return nonBlank(url.substring(url.indexOf("cloudfront.net/") + "cloudfront.net/".length()));
+        }
+
+        // S3 URL pattern: https://bucket.s3.region.amazonaws.com/path/to/file.jpg -> path/to/file.jpg
+        if (url.contains("s3") && url.contains("amazonaws.com/")) {
+            return nonBlank(url.substring(url.indexOf("amazonaws.com/") + "amazonaws.com/".length()));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Content type, length and cache headers are part of the signature, so the client cannot
+     * store anything else under the key. Signing is local; no request is made to S3.
+     */
+    @Override
+    public Optional<PresignedPut> presignPut(String key, String contentType, long contentLength, Duration ttl) {
+        PresignedPutObjectRequest presigned = presigner.presignPutObject(builder -> builder
+                .signatureDuration(ttl)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .cacheControl(CACHE_CONTROL)
+                        .build()));
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            // Host and Content-Length are set by the HTTP client itself
+            if (!name.equalsIgnoreCase("host") && !name.equalsIgnoreCase("content-length")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return Optional.of(new PresignedPut(presigned.url().toString(), headers, presigned.expiration()));
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        s3Client.close();
+    }
+
+    private static Optional<String> nonBlank(String key) {
+        return key.isBlank() ? Optional.empty() : Optional.of(key);
+    }
+}
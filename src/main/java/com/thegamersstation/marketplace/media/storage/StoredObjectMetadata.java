@@ -0,0 +1,9 @@
+package com.thegamersstation.marketplace.media.storage;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored object as reported by {@link MediaStorage#head}.
+ * eTag may be null when the backend does not provide one.
+ */
+public record StoredObjectMetadata(long contentLength, String contentType, String eTag, Instant lastModified) {}
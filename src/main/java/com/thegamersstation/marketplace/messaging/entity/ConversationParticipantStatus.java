@@ -54,9 +54,14 @@ public class ConversationParticipantStatus {
     @Builder.Default
     private Boolean isBlocked = false;
     
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "last_read_message_id")
-    private Message lastReadMessage;
+    /** Read watermark: every message in the conversation up to this ID counts as read by the user */
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+    
+    /** Messages from the other participant above the read watermark, maintained by UnreadCounters */
+    @Column(name = "unread_count", nullable = false)
+    @Builder.Default
+    private Integer unreadCount = 0;
     
     @Column(name = "last_seen_at")
     private LocalDateTime lastSeenAt;
@@ -17,6 +17,7 @@ import java.time.LocalDateTime;
 @Table(name = "messages",
     indexes = {
         @Index(name = "idx_messages_conversation_created", columnList = "conversation_id, created_at DESC"),
+        @Index(name = "idx_messages_conversation_id", columnList = "conversation_id, id"),
         @Index(name = "idx_messages_unread", columnList = "conversation_id, is_read, sender_id"),
         @Index(name = "idx_messages_sender", columnList = "sender_id")
     }
@@ -49,6 +50,7 @@ public class Message {
     @Builder.Default
     private MessageType messageType = MessageType.TEXT;
     
+    /** No longer written; read state comes from ConversationParticipantStatus.lastReadMessageId */
     @Column(name = "is_read", nullable = false)
     @Builder.Default
     private Boolean isRead = false;
@@ -0,0 +1,35 @@
+package com.thegamersstation.marketplace.messaging.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user sums of the participants' unread counters, behind the inbox badge.
+ * Written only with atomic UPDATE/upsert statements, never through the entity.
+ */
+@Entity
+@Table(name = "user_unread_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserUnreadTotal {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_conversations", nullable = false)
+    private Integer unreadConversations;
+
+    @Column(name = "unread_messages", nullable = false)
+    private Integer unreadMessages;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
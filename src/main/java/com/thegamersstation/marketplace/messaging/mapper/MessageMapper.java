@@ -20,17 +20,16 @@ public abstract class MessageMapper {
     @Mapping(target = "sender", source = "sender")
     @Mapping(target = "isOwnMessage", expression = "java(message.getSender().getId().equals(currentUserId))")
     @Mapping(target = "status", ignore = true)
+    @Mapping(target = "isRead", ignore = true)
+    @Mapping(target = "readAt", ignore = true)
     public abstract MessageDto toDto(Message message, @Context Long currentUserId);
     
     @AfterMapping
     protected void afterMapping(@MappingTarget MessageDto dto, Message message, @Context Long currentUserId) {
-        // Set message status based on read state and ownership
+        // Own messages stay SENT until the recipient's read watermark passes them (see MessageService)
+        dto.setIsRead(false);
         if (dto.getIsOwnMessage()) {
-            if (message.getIsRead()) {
-                dto.setStatus(MessageDto.MessageStatus.READ);
-            } else {
-                dto.setStatus(MessageDto.MessageStatus.SENT);
-            }
+            dto.setStatus(MessageDto.MessageStatus.SENT);
         } else {
             // For received messages, always show as READ
             dto.setStatus(MessageDto.MessageStatus.READ);
@@ -1,7 +1,10 @@
 package com.thegamersstation.marketplace.messaging.repository;
 
 import com.thegamersstation.marketplace.messaging.entity.ConversationParticipantStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,6 +24,19 @@ public interface ConversationParticipantStatusRepository extends JpaRepository<C
         @Param("userId") Long userId
     );
     
+    /**
+     * The given users with their block flag in the conversation, as [User, isBlocked] rows;
+     * isBlocked is null when the user has no status row. Loads both sides of a send in one query.
+     */
+    @Query("SELECT u, cps.isBlocked FROM User u " +
+           "LEFT JOIN ConversationParticipantStatus cps " +
+           "ON cps.user.id = u.id AND cps.conversation.id = :conversationId " +
+           "WHERE u.id IN :userIds")
+    List<Object[]> findUsersWithBlockStatus(
+        @Param("conversationId") Long conversationId,
+        @Param("userIds") List<Long> userIds
+    );
+    
     @Query("SELECT cps FROM ConversationParticipantStatus cps " +
            "WHERE cps.user.id = :userId AND cps.isArchived = false")
     List<ConversationParticipantStatus> findActiveByUserId(@Param("userId") Long userId);
@@ -39,6 +55,85 @@ public interface ConversationParticipantStatusRepository extends JpaRepository<C
         @Param("lastSeenAt") LocalDateTime lastSeenAt
     );
     
+    /**
+     * Move the user's read watermark forward to the given message and clear the unread counter;
+     * never moves the watermark back.
+     * @return 0 when the watermark was already at or past the message
+     */
+    @Modifying
+    @Query("UPDATE ConversationParticipantStatus cps " +
+           "SET cps.lastReadMessageId = :messageId, cps.unreadCount = 0, cps.lastSeenAt = :readAt " +
+           "WHERE cps.conversation.id = :conversationId AND cps.user.id = :userId " +
+           "AND (cps.lastReadMessageId IS NULL OR cps.lastReadMessageId < :messageId)")
+    int advanceReadWatermark(
+        @Param("conversationId") Long conversationId,
+        @Param("userId") Long userId,
+        @Param("messageId") Long messageId,
+        @Param("readAt") LocalDateTime readAt
+    );
+    
+    /**
+     * The user's participant row, locked until the transaction ends. Serializes read resets
+     * with counter increments from concurrent sends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cps FROM ConversationParticipantStatus cps " +
+           "WHERE cps.conversation.id = :conversationId AND cps.user.id = :userId")
+    Optional<ConversationParticipantStatus> findForUpdate(
+        @Param("conversationId") Long conversationId,
+        @Param("userId") Long userId
+    );
+    
+    @Modifying
+    @Query("UPDATE ConversationParticipantStatus cps SET cps.unreadCount = cps.unreadCount + :count " +
+           "WHERE cps.conversation.id = :conversationId AND cps.user.id = :userId")
+    int incrementUnreadCount(
+        @Param("conversationId") Long conversationId,
+        @Param("userId") Long userId,
+        @Param("count") int count
+    );
+    
+    @Query("SELECT cps.unreadCount FROM ConversationParticipantStatus cps " +
+           "WHERE cps.conversation.id = :conversationId AND cps.user.id = :userId")
+    Optional<Integer> findUnreadCount(
+        @Param("conversationId") Long conversationId,
+        @Param("userId") Long userId
+    );
+    
+    /**
+     * Unread counters of one user for a page of conversations, as [conversationId, unreadCount] rows.
+     */
+    @Query("SELECT cps.conversation.id, cps.unreadCount FROM ConversationParticipantStatus cps " +
+           "WHERE cps.user.id = :userId AND cps.conversation.id IN :conversationIds")
+    List<Object[]> findUnreadCounts(
+        @Param("userId") Long userId,
+        @Param("conversationIds") List<Long> conversationIds
+    );
+    
+    /**
+     * Recompute the unread counters of participant rows with IDs in (fromId, toId] from the
+     * read watermarks. Used by the reconciler.
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_participants_status s " +
+                   "SET s.unread_count = (SELECT COUNT(*) FROM messages m " +
+                   "WHERE m.conversation_id = s.conversation_id AND m.sender_id <> s.user_id " +
+                   "AND m.id > COALESCE(s.last_read_message_id, 0)) " +
+                   "WHERE s.id > :fromId AND s.id <= :toId",
+           nativeQuery = true)
+    int recomputeUnreadCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    @Query("SELECT cps.id, cps.user.id FROM ConversationParticipantStatus cps " +
+           "WHERE cps.id > :afterId ORDER BY cps.id")
+    List<Object[]> findIdsAndUsersAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Read watermarks of the conversation's participants as [userId, lastReadMessageId] rows.
+     */
+    @Query("SELECT cps.user.id, cps.lastReadMessageId FROM ConversationParticipantStatus cps " +
+           "WHERE cps.conversation.id = :conversationId")
+    List<Object[]> findReadWatermarks(@Param("conversationId") Long conversationId);
+    
     @Modifying
     @Query("UPDATE ConversationParticipantStatus cps " +
            "SET cps.isMuted = :isMuted " +
@@ -45,41 +45,24 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
         @Param("userId") Long userId
     );
     
+    /**
+     * Participants of several conversations as [conversationId, sellerId, buyerId, postId] rows,
+     * read from the foreign key columns without loading entities.
+     */
+    @Query("SELECT c.id, c.seller.id, c.buyer.id, c.post.id FROM Conversation c WHERE c.id IN :conversationIds")
+    List<Object[]> findMembershipsByIds(@Param("conversationIds") List<Long> conversationIds);
+
     @Query("SELECT COUNT(c) FROM Conversation c WHERE c.seller.id = :userId OR c.buyer.id = :userId")
     long countByParticipantId(@Param("userId") Long userId);
     
-    @Query("SELECT COUNT(m) FROM Message m " +
-           "WHERE m.conversation.id = :conversationId " +
-           "AND m.sender.id != :userId " +
-           "AND m.isRead = false")
-    long countUnreadMessages(
-        @Param("conversationId") Long conversationId,
-        @Param("userId") Long userId
-    );
-    
-    @Query("SELECT COUNT(DISTINCT m.conversation.id) FROM Message m " +
-           "WHERE (m.conversation.seller.id = :userId OR m.conversation.buyer.id = :userId) " +
-           "AND m.sender.id != :userId " +
-           "AND m.isRead = false")
-    long countConversationsWithUnreadMessages(@Param("userId") Long userId);
-    
     /**
-     * Count unread messages for multiple conversations in a single query.
-     * Returns a list of [conversationId, unreadCount] pairs.
+     * Set the last-message summary unless the stored one is newer (summaries are flushed
+     * asynchronously, possibly from several instances).
      */
-    @Query("SELECT m.conversation.id, COUNT(m) FROM Message m " +
-           "WHERE m.conversation.id IN :conversationIds " +
-           "AND m.sender.id != :userId " +
-           "AND m.isRead = false " +
-           "GROUP BY m.conversation.id")
-    List<Object[]> countUnreadMessagesByConversationIds(
-        @Param("conversationIds") List<Long> conversationIds,
-        @Param("userId") Long userId
-    );
-
     @Modifying
     @Query("UPDATE Conversation c SET c.lastMessageAt = :lastMessageAt, " +
-           "c.lastMessagePreview = :preview WHERE c.id = :conversationId")
+           "c.lastMessagePreview = :preview WHERE c.id = :conversationId " +
+           "AND (c.lastMessageAt IS NULL OR c.lastMessageAt <= :lastMessageAt)")
     void updateLastMessage(
         @Param("conversationId") Long conversationId,
         @Param("lastMessageAt") LocalDateTime lastMessageAt,
@@ -89,7 +72,4 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("SELECT c FROM Conversation c WHERE c.post.id = :postId")
     Page<Conversation> findByPostId(@Param("postId") Long postId, Pageable pageable);
 
-    @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Conversation c " +
-           "WHERE c.id = :conversationId AND (c.seller.id = :userId OR c.buyer.id = :userId)")
-    boolean isParticipant(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
 }
@@ -30,22 +30,8 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
         Pageable pageable
     );
     
-    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId " +
-           "AND m.sender.id != :userId AND m.isRead = false")
-    List<Message> findUnreadMessages(
-        @Param("conversationId") Long conversationId,
-        @Param("userId") Long userId
-    );
-    
-    @Modifying
-    @Query("UPDATE Message m SET m.isRead = true, m.readAt = :readAt " +
-           "WHERE m.conversation.id = :conversationId " +
-           "AND m.sender.id != :userId AND m.isRead = false")
-    int markMessagesAsRead(
-        @Param("conversationId") Long conversationId,
-        @Param("userId") Long userId,
-        @Param("readAt") LocalDateTime readAt
-    );
+    @Query("SELECT MAX(m.id) FROM Message m WHERE m.conversation.id = :conversationId")
+    Optional<Long> findLatestMessageId(@Param("conversationId") Long conversationId);
     
     @Modifying
     @Query("UPDATE Message m SET m.deletedBySender = CASE WHEN m.sender.id = :userId THEN true ELSE m.deletedBySender END, " +
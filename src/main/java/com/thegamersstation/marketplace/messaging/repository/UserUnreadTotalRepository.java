@@ -0,0 +1,62 @@
+package com.thegamersstation.marketplace.messaging.repository;
+
+import com.thegamersstation.marketplace.messaging.entity.UserUnreadTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface UserUnreadTotalRepository extends JpaRepository<UserUnreadTotal, Long> {
+
+    @Query("SELECT t.unreadConversations FROM UserUnreadTotal t WHERE t.userId = :userId")
+    Optional<Integer> findUnreadConversations(@Param("userId") Long userId);
+
+    /**
+     * Add messages just counted on the user's participant row. The conversation turns unread
+     * when its counter now equals the number added; the caller holds that row's lock, so the
+     * read is current.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_unread_totals (user_id, unread_conversations, unread_messages) " +
+                   "SELECT s.user_id, CASE WHEN s.unread_count = :count THEN 1 ELSE 0 END, :count " +
+                   "FROM conversation_participants_status s " +
+                   "WHERE s.conversation_id = :conversationId AND s.user_id = :userId " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "unread_conversations = unread_conversations + VALUES(unread_conversations), " +
+                   "unread_messages = unread_messages + VALUES(unread_messages)",
+           nativeQuery = true)
+    int addUnread(@Param("conversationId") Long conversationId,
+                  @Param("userId") Long userId,
+                  @Param("count") int count);
+
+    /**
+     * Subtract the messages of one conversation that was just read.
+     */
+    @Modifying
+    @Query(value = "UPDATE user_unread_totals " +
+                   "SET unread_conversations = GREATEST(unread_conversations - 1, 0), " +
+                   "unread_messages = GREATEST(unread_messages - :count, 0) " +
+                   "WHERE user_id = :userId",
+           nativeQuery = true)
+    int subtractRead(@Param("userId") Long userId, @Param("count") int count);
+
+    /**
+     * Recompute the totals of the given users from their participant rows.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_unread_totals (user_id, unread_conversations, unread_messages) " +
+                   "SELECT s.user_id, SUM(s.unread_count > 0), SUM(s.unread_count) " +
+                   "FROM conversation_participants_status s " +
+                   "WHERE s.user_id IN (:userIds) " +
+                   "GROUP BY s.user_id " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "unread_conversations = VALUES(unread_conversations), " +
+                   "unread_messages = VALUES(unread_messages)",
+           nativeQuery = true)
+    int recompute(@Param("userIds") Collection<Long> userIds);
+}
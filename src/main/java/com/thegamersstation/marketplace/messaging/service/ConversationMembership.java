@@ -0,0 +1,18 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+/**
+ * Who belongs to a conversation. Fixed when the conversation is created, so it is safe to cache.
+ */
+public record ConversationMembership(long conversationId, long sellerId, long buyerId, long postId) {
+
+    public boolean isParticipant(Long userId) {
+        return userId != null && (userId == sellerId || userId == buyerId);
+    }
+
+    /**
+     * The participant on the other side from the given one.
+     */
+    public long otherParticipant(Long userId) {
+        return userId == sellerId ? buyerId : sellerId;
+    }
+}
@@ -0,0 +1,151 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thegamersstation.marketplace.messaging.entity.Conversation;
+import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory index of conversation participants, shared by the REST services and the STOMP
+ * subscription check.
+ *
+ * <p>Participants never change after a conversation is created, so entries are only removed
+ * when the conversation is deleted ({@link #forgetPost}). Misses are loaded with a projection
+ * query (no entity, no joins); conversations that were loaded anyway (a conversation list page,
+ * a new conversation) are added with {@link #remember}. Unknown IDs are not cached.
+ * Block status can change at any time and is not part of the cache.</p>
+ *
+ * <p>Inside a transaction, remembered conversations are only visible to that transaction until
+ * it commits, so a rollback never leaves an entry for a conversation that doesn't exist.</p>
+ */
+@Component
+public class ConversationMembershipCache {
+
+    private final Cache<Long, ConversationMembership> membershipById;
+    private final ConversationRepository conversationRepository;
+
+    public ConversationMembershipCache(
+            ConversationRepository conversationRepository,
+            @Value("${messaging.membership-cache.max-conversations:100000}") long maxConversations,
+            @Value("${messaging.membership-cache.expire-after-access-minutes:120}") long expireMinutes
+    ) {
+        this.conversationRepository = conversationRepository;
+        this.membershipById = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .build();
+    }
+
+    public Optional<ConversationMembership> get(Long conversationId) {
+        if (conversationId == null) {
+            return Optional.empty();
+        }
+        ConversationMembership uncommitted = rememberedInTransaction(false)
+                .map(remembered -> remembered.memberships.get(conversationId))
+                .orElse(null);
+        if (uncommitted != null) {
+            return Optional.of(uncommitted);
+        }
+        return Optional.ofNullable(membershipById.get(conversationId, this::load));
+    }
+
+    /**
+     * Membership of the conversation if the user takes part in it; empty when the conversation
+     * does not exist or belongs to others.
+     */
+    public Optional<ConversationMembership> findForParticipant(Long conversationId, Long userId) {
+        return get(conversationId).filter(membership -> membership.isParticipant(userId));
+    }
+
+    public boolean isParticipant(Long conversationId, Long userId) {
+        return findForParticipant(conversationId, userId).isPresent();
+    }
+
+    /**
+     * Cache a conversation whose participants are already loaded, sparing the next check a query.
+     */
+    public void remember(Conversation conversation) {
+        ConversationMembership membership = new ConversationMembership(
+                conversation.getId(),
+                conversation.getSeller().getId(),
+                conversation.getBuyer().getId(),
+                conversation.getPost().getId()
+        );
+        rememberedInTransaction(true).ifPresentOrElse(
+                remembered -> remembered.memberships.put(membership.conversationId(), membership),
+                () -> membershipById.put(membership.conversationId(), membership));
+    }
+
+    /**
+     * Drop the conversations about a post, which the database deletes with it. Inside a
+     * transaction this happens once it commits.
+     */
+    public void forgetPost(long postId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forgetPostNow(postId);
+                }
+            });
+        } else {
+            forgetPostNow(postId);
+        }
+    }
+
+    private void forgetPostNow(long postId) {
+        membershipById.asMap().values().removeIf(membership -> membership.postId() == postId);
+    }
+
+    /**
+     * Conversations remembered by the current transaction, published to the cache on commit.
+     * Empty outside a transaction, or when none were remembered yet and {@code create} is false.
+     */
+    private Optional<RememberedInTransaction> rememberedInTransaction(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Optional.empty();
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof RememberedInTransaction remembered && remembered.owner() == this) {
+                return Optional.of(remembered);
+            }
+        }
+        if (!create) {
+            return Optional.empty();
+        }
+        RememberedInTransaction remembered = new RememberedInTransaction();
+        TransactionSynchronizationManager.registerSynchronization(remembered);
+        return Optional.of(remembered);
+    }
+
+    private final class RememberedInTransaction implements TransactionSynchronization {
+
+        private final Map<Long, ConversationMembership> memberships = new HashMap<>();
+
+        ConversationMembershipCache owner() {
+            return ConversationMembershipCache.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            membershipById.putAll(memberships);
+        }
+    }
+
+    private ConversationMembership load(Long conversationId) {
+        return conversationRepository.findMembershipsByIds(List.of(conversationId)).stream()
+                .map(row -> new ConversationMembership((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3]))
+                .findFirst()
+                .orElse(null);
+    }
+}
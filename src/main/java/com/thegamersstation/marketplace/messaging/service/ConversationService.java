@@ -9,6 +9,7 @@ import com.thegamersstation.marketplace.common.util.StringUtil;
 import com.thegamersstation.marketplace.messaging.mapper.ConversationMapper;
 import com.thegamersstation.marketplace.messaging.repository.ConversationParticipantStatusRepository;
 import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import com.thegamersstation.marketplace.messaging.repository.UserUnreadTotalRepository;
 import com.thegamersstation.marketplace.post.Post;
 import com.thegamersstation.marketplace.post.PostRepository;
 import com.thegamersstation.marketplace.user.repository.User;
@@ -34,7 +35,10 @@ import java.util.stream.Collectors;
 public class ConversationService {
     
     private final ConversationRepository conversationRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final ConversationSummaryBuffer summaryBuffer;
     private final ConversationParticipantStatusRepository participantStatusRepository;
+    private final UserUnreadTotalRepository unreadTotalRepository;
     private final PostRepository postRepository;
     private final UsersRepository userRepository;
     private final ConversationMapper conversationMapper;
@@ -77,6 +81,8 @@ public class ConversationService {
             .build();
         
         conversation = conversationRepository.save(conversation);
+        // Seen by this transaction right away, by everyone else once it commits
+        membershipCache.remember(conversation);
 
         // Create participant statuses
         createParticipantStatuses(conversation);
@@ -98,9 +104,10 @@ public class ConversationService {
             .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
         
         ConversationDto dto = conversationMapper.toDto(conversation, userId);
+        applyPendingSummary(dto);
         
         // Add unread count
-        long unreadCount = conversationRepository.countUnreadMessages(conversationId, userId);
+        long unreadCount = participantStatusRepository.findUnreadCount(conversationId, userId).orElse(0);
         dto.setUnreadCount(unreadCount);
         
         return dto;
@@ -109,31 +116,33 @@ public class ConversationService {
     @Transactional(readOnly = true)
     public ConversationsPageDto getUserConversations(Long userId, Pageable pageable) {
         Page<Conversation> conversationsPage = conversationRepository.findByParticipantId(userId, pageable);
+        conversationsPage.forEach(membershipCache::remember);
         
-        // Batch fetch unread counts for all conversations in one query
+        // Read the page's unread counters in one query
         List<Long> conversationIds = conversationsPage.getContent().stream()
             .map(Conversation::getId)
             .collect(Collectors.toList());
         
         Map<Long, Long> unreadCountMap = Map.of();
         if (!conversationIds.isEmpty()) {
-            unreadCountMap = conversationRepository
-                .countUnreadMessagesByConversationIds(conversationIds, userId)
+            unreadCountMap = participantStatusRepository
+                .findUnreadCounts(userId, conversationIds)
                 .stream()
                 .collect(Collectors.toMap(
                     row -> (Long) row[0],
-                    row -> (Long) row[1]
+                    row -> ((Integer) row[1]).longValue()
                 ));
         }
         
         Map<Long, Long> finalUnreadCountMap = unreadCountMap;
         Page<ConversationDto> dtoPage = conversationsPage.map(conversation -> {
             ConversationDto dto = conversationMapper.toDto(conversation, userId);
+            applyPendingSummary(dto);
             dto.setUnreadCount(finalUnreadCountMap.getOrDefault(conversation.getId(), 0L));
             return dto;
         });
         
-        long totalUnreadConversations = conversationRepository.countConversationsWithUnreadMessages(userId);
+        long totalUnreadConversations = unreadTotalRepository.findUnreadConversations(userId).orElse(0);
         
         return ConversationsPageDto.of(dtoPage, totalUnreadConversations);
     }
@@ -171,7 +180,19 @@ public class ConversationService {
     }
     
     void updateLastMessage(Long conversationId, String messagePreview, LocalDateTime timestamp) {
-        conversationRepository.updateLastMessage(conversationId, timestamp, StringUtil.truncatePreview(messagePreview));
+        summaryBuffer.record(conversationId, timestamp, StringUtil.truncatePreview(messagePreview));
+    }
+    
+    /**
+     * Show a last message that is not flushed to the conversation row yet.
+     */
+    private void applyPendingSummary(ConversationDto dto) {
+        summaryBuffer.pending(dto.getId())
+            .filter(summary -> dto.getLastMessageAt() == null || summary.lastMessageAt().isAfter(dto.getLastMessageAt()))
+            .ifPresent(summary -> {
+                dto.setLastMessageAt(summary.lastMessageAt());
+                dto.setLastMessagePreview(summary.preview());
+            });
     }
     
     private void createParticipantStatuses(Conversation conversation) {
@@ -210,7 +231,7 @@ public class ConversationService {
     }
     
     private void validateParticipant(Long conversationId, Long userId) {
-        conversationRepository.findByIdAndParticipantId(conversationId, userId)
+        membershipCache.findForParticipant(conversationId, userId)
             .orElseThrow(() -> new BusinessRuleException("User is not a participant in this conversation"));
     }
     
@@ -0,0 +1,83 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffers the last-message summary (timestamp and preview) of each conversation and writes it
+ * to {@code conversations} in batches, so sending a message does not update the conversation row.
+ *
+ * <p>A burst of messages in one conversation collapses into a single UPDATE. Readers overlay
+ * {@link #pending(Long)} on the persisted values; list ordering catches up on the next flush.
+ * Summaries stay buffered until the flush has committed, so a failed flush loses nothing.</p>
+ */
+@Slf4j
+@Component
+public class ConversationSummaryBuffer {
+
+    private final ConversationRepository conversationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Summary> pending = new ConcurrentHashMap<>();
+
+    public ConversationSummaryBuffer(ConversationRepository conversationRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.conversationRepository = conversationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Summary(LocalDateTime lastMessageAt, String preview) {
+
+        private Summary newer(Summary other) {
+            return other.lastMessageAt.isAfter(lastMessageAt) ? other : this;
+        }
+    }
+
+    public void record(Long conversationId, LocalDateTime lastMessageAt, String preview) {
+        pending.merge(conversationId, new Summary(lastMessageAt, preview), Summary::newer);
+    }
+
+    /**
+     * Summary of a conversation that has not been flushed to the database yet.
+     */
+    public Optional<Summary> pending(Long conversationId) {
+        return Optional.ofNullable(pending.get(conversationId));
+    }
+
+    /**
+     * Flush pending summaries in one transaction. Also runs on shutdown so the latest
+     * previews are not lost on a clean restart.
+     */
+    @Scheduled(fixedDelayString = "${messaging.summary-flush-interval-ms:1000}")
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Summary> batch = new HashMap<>(pending);
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach((conversationId, summary) ->
+                    conversationRepository.updateLastMessage(conversationId, summary.lastMessageAt(), summary.preview())));
+        } catch (RuntimeException e) {
+            // Nothing was removed yet, so the next run retries the whole batch
+            log.error("Failed to flush conversation summaries, will retry: {}", e.getMessage());
+            throw e;
+        }
+        // Committed: drop what was written, unless a newer summary arrived meanwhile
+        batch.forEach(pending::remove);
+        log.debug("Flushed last-message summaries for {} conversations", batch.size());
+    }
+}
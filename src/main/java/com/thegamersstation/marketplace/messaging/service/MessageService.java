@@ -5,8 +5,6 @@ import com.thegamersstation.marketplace.common.exception.ResourceNotFoundExcepti
 import com.thegamersstation.marketplace.common.util.ContentSanitizer;
 import com.thegamersstation.marketplace.common.util.ProfanityFilter;
 import com.thegamersstation.marketplace.messaging.dto.*;
-import com.thegamersstation.marketplace.messaging.entity.Conversation;
-import com.thegamersstation.marketplace.messaging.entity.ConversationParticipantStatus;
 import com.thegamersstation.marketplace.messaging.entity.Message;
 import com.thegamersstation.marketplace.common.util.StringUtil;
 import com.thegamersstation.marketplace.messaging.mapper.MessageMapper;
@@ -15,18 +13,22 @@ import com.thegamersstation.marketplace.messaging.repository.ConversationReposit
 import com.thegamersstation.marketplace.messaging.repository.MessageRepository;
 import com.thegamersstation.marketplace.notification.EmailNotificationService;
 import com.thegamersstation.marketplace.user.repository.User;
-import com.thegamersstation.marketplace.user.repository.UsersRepository;
+import com.thegamersstation.marketplace.websocket.PresenceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,74 +39,103 @@ public class MessageService {
     
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final ConversationSummaryBuffer summaryBuffer;
+    private final MessageWritePipeline writePipeline;
+    private final UnreadCounters unreadCounters;
     private final ConversationParticipantStatusRepository participantStatusRepository;
-    private final UsersRepository userRepository;
     private final MessageMapper messageMapper;
     private final ContentSanitizer contentSanitizer;
     private final ProfanityFilter profanityFilter;
     private final SimpMessagingTemplate messagingTemplate;
     private final EmailNotificationService emailNotificationService;
+    private final PresenceRegistry presenceRegistry;
     
     private static final int MAX_MESSAGE_LENGTH = 5000;
     private static final int DEFAULT_PAGE_SIZE = 20;
     
+    /**
+     * Send a message. One query loads both participants and the recipient's block flag (membership
+     * comes from {@link ConversationMembershipCache}); then one transaction inserts the message and
+     * bumps the recipient's unread counters. The conversation's last-message summary is written
+     * later by {@link ConversationSummaryBuffer}.
+     *
+     * <p>Runs without a transaction of its own. When the caller has none and the
+     * {@link MessageWritePipeline} is enabled, the insert is group-committed and the message is
+     * broadcast by the writer once durable; otherwise it is inserted directly.</p>
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public MessageDto sendMessage(Long conversationId, SendMessageRequest request, Long senderId) {
         // Validate conversation and sender
-        Conversation conversation = conversationRepository
-            .findByIdAndParticipantId(conversationId, senderId)
+        ConversationMembership membership = membershipCache.findForParticipant(conversationId, senderId)
             .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        Long recipientId = membership.otherParticipant(senderId);
         
-        User sender = userRepository.findById(senderId)
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        // Validate and sanitize content before touching the database
+        String sanitizedContent = sanitizeMessageContent(request.getContent());
         
-        // Check if sender is blocked
-        Long recipientId = conversation.getSeller().getId().equals(senderId) 
-            ? conversation.getBuyer().getId() 
-            : conversation.getSeller().getId();
-            
-        ConversationParticipantStatus recipientStatus = participantStatusRepository
-            .findByConversationIdAndUserId(conversationId, recipientId)
-            .orElse(null);
-            
-        if (recipientStatus != null && recipientStatus.getIsBlocked()) {
+        // Load sender, recipient and the recipient's block flag in one query
+        User sender = null;
+        User recipient = null;
+        boolean recipientBlocked = false;
+        for (Object[] row : participantStatusRepository.findUsersWithBlockStatus(
+                conversationId, List.of(senderId, recipientId))) {
+            User user = (User) row[0];
+            if (user.getId().equals(senderId)) {
+                sender = user;
+            } else {
+                recipient = user;
+                recipientBlocked = Boolean.TRUE.equals(row[1]);
+            }
+        }
+        if (sender == null) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        if (recipientBlocked) {
             throw new BusinessRuleException("Cannot send message to blocked user");
         }
         
-        // Validate and sanitize content
-        String sanitizedContent = sanitizeMessageContent(request.getContent());
-        
         // Create message
         Message message = Message.builder()
-            .conversation(conversation)
+            .conversation(conversationRepository.getReferenceById(conversationId))
             .sender(sender)
             .content(sanitizedContent)
             .messageType(Message.MessageType.TEXT)
             .build();
         
-        message = messageRepository.save(message);
+        User messageSender = sender;
+        User messageRecipient = recipient;
         
-        // Update conversation last message directly via repository
-        conversationRepository.updateLastMessage(
-            conversationId,
-            message.getCreatedAt(),
-            StringUtil.truncatePreview(sanitizedContent)
-        );
+        // Group-commit unless the caller's transaction must see the row (e.g. a new conversation)
+        if (writePipeline.isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writePipeline.submitAndWait(message, recipientId,
+                saved -> publish(saved, recipientId, messageSender, messageRecipient));
+        }
+        
+        return writePipeline.writeNow(message, recipientId,
+            saved -> publish(saved, recipientId, messageSender, messageRecipient));
+    }
+    
+    /**
+     * Everything that follows a durable insert: conversation summary, WebSocket broadcast, and email if the recipient is offline.
+     */
+    private MessageDto publish(Message message, Long recipientId, User sender, User recipient) {
+        Long conversationId = message.getConversation().getId();
+        String preview = StringUtil.truncatePreview(message.getContent());
+        summaryBuffer.record(conversationId, message.getCreatedAt(), preview);
         
         // Convert to DTO
-        MessageDto messageDto = messageMapper.toDto(message, senderId);
+        MessageDto messageDto = messageMapper.toDto(message, sender.getId());
         
         // Broadcast to recipient via WebSocket
         broadcastMessage(conversationId, recipientId, messageDto);
         
-        // Send email notification to recipient (async, non-blocking)
-        User recipient = userRepository.findById(recipientId)
-            .orElse(null);
-        if (recipient != null) {
-            emailNotificationService.sendNewMessageNotification(
-                recipient, sender, StringUtil.truncatePreview(sanitizedContent), conversationId);
+        // Email only recipients who are not connected; the others just got the WebSocket push
+        if (recipient != null && !presenceRegistry.isOnline(recipientId)) {
+            emailNotificationService.sendNewMessageNotification(recipient, sender, preview, conversationId);
         }
         
-        log.info("Message sent in conversation {} by user {}", conversationId, senderId);
+        log.info("Message sent in conversation {} by user {}", conversationId, sender.getId());
         
         return messageDto;
     }
@@ -112,7 +143,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public MessagesPageDto getMessages(Long conversationId, Long userId, Long cursor, Integer size) {
         // Validate user is participant
-        conversationRepository.findByIdAndParticipantId(conversationId, userId)
+        ConversationMembership membership = membershipCache.findForParticipant(conversationId, userId)
             .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
         
         // Use default size if not provided
@@ -126,9 +157,10 @@ public class MessageService {
             PageRequest.of(0, pageSize)
         );
         
-        // Convert to DTOs
+        // Convert to DTOs, with read state from both participants' watermarks
+        Map<Long, Long> watermarks = readWatermarks(conversationId);
         List<MessageDto> messageDtos = messagePage.getContent().stream()
-            .map(message -> messageMapper.toDto(message, userId))
+            .map(message -> applyReadState(messageMapper.toDto(message, userId), userId, membership, watermarks))
             .collect(Collectors.toList());
         
         // Reverse order for chronological display
@@ -148,24 +180,22 @@ public class MessageService {
             .build();
     }
     
+    /**
+     * Mark everything in the conversation as read by moving the user's read watermark to the
+     * latest message and clearing their unread counter, however many messages were unread.
+     */
     public void markMessagesAsRead(Long conversationId, Long userId) {
         // Validate user is participant
-        conversationRepository.findByIdAndParticipantId(conversationId, userId)
+        ConversationMembership membership = membershipCache.findForParticipant(conversationId, userId)
             .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
         
-        int updatedCount = messageRepository.markMessagesAsRead(
-            conversationId,
-            userId,
-            LocalDateTime.now()
-        );
-        
-        if (updatedCount > 0) {
-            log.info("Marked {} messages as read in conversation {} for user {}", 
-                updatedCount, conversationId, userId);
+        unreadCounters.markRead(conversationId, userId).ifPresent(lastReadMessageId -> {
+            log.info("Marked messages up to {} as read in conversation {} for user {}", 
+                lastReadMessageId, conversationId, userId);
             
             // Notify sender via WebSocket that messages were read
-            broadcastReadReceipts(conversationId, userId);
-        }
+            broadcastReadReceipts(membership, userId, lastReadMessageId);
+        });
     }
     
     public void deleteMessage(Long messageId, Long userId) {
@@ -182,7 +212,40 @@ public class MessageService {
         Message message = messageRepository.findByIdAndParticipantId(messageId, userId)
             .orElseThrow(() -> new ResourceNotFoundException("Message not found"));
         
-        return messageMapper.toDto(message, userId);
+        Long conversationId = message.getConversation().getId();
+        ConversationMembership membership = membershipCache.get(conversationId)
+            .orElseThrow(() -> new ResourceNotFoundException("Message not found"));
+        return applyReadState(messageMapper.toDto(message, userId), userId, membership,
+            readWatermarks(conversationId));
+    }
+    
+    /**
+     * Read watermark of each participant that has one, by user ID.
+     */
+    private Map<Long, Long> readWatermarks(Long conversationId) {
+        Map<Long, Long> watermarks = new HashMap<>();
+        for (Object[] row : participantStatusRepository.findReadWatermarks(conversationId)) {
+            if (row[1] != null) {
+                watermarks.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        return watermarks;
+    }
+    
+    /**
+     * A message is read once the watermark of the participant who received it has reached it.
+     */
+    private MessageDto applyReadState(MessageDto dto, Long currentUserId, ConversationMembership membership,
+                                      Map<Long, Long> watermarks) {
+        Long readerId = dto.getIsOwnMessage() ? membership.otherParticipant(currentUserId) : currentUserId;
+        Long watermark = watermarks.get(readerId);
+        
+        boolean read = watermark != null && dto.getId() <= watermark;
+        dto.setIsRead(read);
+        if (read && dto.getIsOwnMessage()) {
+            dto.setStatus(MessageDto.MessageStatus.READ);
+        }
+        return dto;
     }
     
     private String sanitizeMessageContent(String content) {
@@ -225,32 +288,27 @@ public class MessageService {
         }
     }
     
-    private void broadcastReadReceipts(Long conversationId, Long readByUserId) {
+    private void broadcastReadReceipts(ConversationMembership membership, Long readByUserId, Long lastReadMessageId) {
         try {
-            Conversation conversation = conversationRepository.findById(conversationId)
-                .orElse(null);
-                
-            if (conversation != null) {
-                Long otherUserId = conversation.getSeller().getId().equals(readByUserId)
-                    ? conversation.getBuyer().getId()
-                    : conversation.getSeller().getId();
-                
-                // Create read receipt notification
-                ReadReceiptDto readReceipt = ReadReceiptDto.builder()
-                    .conversationId(conversationId)
-                    .readByUserId(readByUserId)
-                    .readAt(LocalDateTime.now())
-                    .build();
-                
-                // Send to other user
-                messagingTemplate.convertAndSendToUser(
-                    otherUserId.toString(),
-                    "/queue/read-receipts",
-                    readReceipt
-                );
-                
-                log.debug("Broadcast read receipt to user {} for conversation {}", otherUserId, conversationId);
-            }
+            Long conversationId = membership.conversationId();
+            Long otherUserId = membership.otherParticipant(readByUserId);
+            
+            // Create read receipt notification
+            ReadReceiptDto readReceipt = ReadReceiptDto.builder()
+                .conversationId(conversationId)
+                .readByUserId(readByUserId)
+                .lastReadMessageId(lastReadMessageId)
+                .readAt(LocalDateTime.now())
+                .build();
+            
+            // Send to other user
+            messagingTemplate.convertAndSendToUser(
+                otherUserId.toString(),
+                "/queue/read-receipts",
+                readReceipt
+            );
+            
+            log.debug("Broadcast read receipt to user {} for conversation {}", otherUserId, conversationId);
         } catch (Exception e) {
             log.error("Failed to broadcast read receipt via WebSocket", e);
         }
@@ -265,6 +323,7 @@ public class MessageService {
     static class ReadReceiptDto {
         private Long conversationId;
         private Long readByUserId;
+        private Long lastReadMessageId;
         private LocalDateTime readAt;
     }
 }
\ No newline at end of file
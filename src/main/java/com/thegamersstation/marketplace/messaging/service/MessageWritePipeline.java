@@ -0,0 +1,359 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.common.exception.RateLimitExceededException;
+import com.thegamersstation.marketplace.messaging.entity.Message;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Inserts chat messages together with their recipients' unread counters, either right away
+ * ({@link #writeNow}) or group-committed when messaging.pipeline.enabled is set.
+ *
+ * <p>Senders validate on their own thread and hand the message to a bounded queue. A single
+ * writer thread drains whatever has queued up (at most max-batch-size) and inserts it with one
+ * multi-row INSERT in one transaction, so a burst pays for one commit instead of one per message.
+ * Once the batch is durable the writer runs each message's callback (broadcast, notifications)
+ * in queue order, which keeps per-conversation order intact, and then completes its future.</p>
+ *
+ * <p>When the queue stays full for enqueue-timeout-ms the send is rejected with a 429. If a batch
+ * insert fails, its messages are retried one by one so a single bad row fails only its sender.
+ * Whatever stops the writer (shutdown, an Error, an interrupt), every message still pending or
+ * queued is failed, so no sender waits forever.</p>
+ *
+ * <p>Ids of a multi-row INSERT are derived by Connector/J from the first one, which is only right
+ * when InnoDB allocated them consecutively. innodb_autoinc_lock_mode 0 and 1 guarantee that;
+ * under 2 (interleaved, the MySQL 8 default) each batch's ids are read back and checked, and a
+ * batch that got interleaved ids is written again one message at a time.</p>
+ */
+@Slf4j
+@Component
+public class MessageWritePipeline {
+
+    private static final String INSERT_PREFIX = "INSERT INTO messages (conversation_id, sender_id, content, "
+            + "message_type, is_read, deleted_by_sender, deleted_by_recipient, created_at, updated_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, false, false, false, ?, ?)";
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long enqueueTimeoutMs;
+    private final long writeTimeoutMs;
+    private final boolean verifyIds;
+    private final BlockingQueue<Pending<?>> queue;
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCounters unreadCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    private record Pending<T>(Message message, long recipientId, Function<Message, T> onDurable,
+                              CompletableFuture<T> result) {
+    }
+
+    public MessageWritePipeline(
+            JdbcTemplate jdbcTemplate,
+            UnreadCounters unreadCounters,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${messaging.pipeline.enabled:false}") boolean enabled,
+            @Value("${messaging.pipeline.queue-capacity:10000}") int queueCapacity,
+            @Value("${messaging.pipeline.max-batch-size:500}") int maxBatchSize,
+            @Value("${messaging.pipeline.enqueue-timeout-ms:200}") long enqueueTimeoutMs,
+            @Value("${messaging.pipeline.write-timeout-ms:10000}") long writeTimeoutMs
+    ) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.jdbcTemplate = jdbcTemplate;
+        this.unreadCounters = unreadCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSizes = DistributionSummary.builder("messaging.pipeline.batch.size")
+                .description("Messages written per commit")
+                .register(meterRegistry);
+        meterRegistry.gauge("messaging.pipeline.queue.size", queue, BlockingQueue::size);
+
+        this.verifyIds = enabled && !consecutiveAutoIncrement(jdbcTemplate);
+        this.running = enabled;
+        this.stopped = !enabled;
+        this.writer = enabled ? Thread.ofPlatform().name("message-writer").daemon().start(this::runWriter) : null;
+        if (enabled) {
+            log.info("Message write pipeline enabled (queue {}, batches of up to {}, ids verified: {})",
+                    queueCapacity, maxBatchSize, verifyIds);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Insert one message now, joining the caller's transaction if there is one, then run the callback.
+     * @param message new message with conversation and sender set; id and timestamps are assigned on insert
+     */
+    public <T> T writeNow(Message message, Long recipientId, Function<Message, T> onDurable) {
+        List<Pending<?>> single = List.of(new Pending<>(message, recipientId, onDurable, null));
+        stamp(single);
+        transactionTemplate.executeWithoutResult(status -> persist(single));
+        return onDurable.apply(message);
+    }
+
+    /**
+     * Queue a message for the next batch.
+     * @param message new message with conversation and sender set; id and timestamps are assigned on insert
+     * @param onDurable run on the writer thread after the message is committed, in queue order
+     * @return completes with the callback's result, or exceptionally if the insert failed
+     */
+    public <T> CompletableFuture<T> submit(Message message, Long recipientId, Function<Message, T> onDurable) {
+        if (stopped) {
+            throw new IllegalStateException("Message writer is not running");
+        }
+        Pending<T> pending = new Pending<>(message, recipientId, onDurable, new CompletableFuture<>());
+        boolean queued;
+        try {
+            queued = running && queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            throw new RateLimitExceededException("Message queue is full", null);
+        }
+        if (stopped) {
+            // The writer exited after the running check; whatever it didn't drain is failed here
+            failQueued(new IllegalStateException("Message writer stopped"));
+        }
+        return pending.result();
+    }
+
+    /**
+     * {@link #submit} and wait at most write-timeout-ms for the callback's result. A message that
+     * times out may still be written, and broadcast, afterwards.
+     */
+    public <T> T submitAndWait(Message message, Long recipientId, Function<Message, T> onDurable) {
+        try {
+            return submit(message, recipientId, onDurable).get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new IllegalStateException("Message write failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Message write not confirmed within " + writeTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for message write", e);
+        }
+    }
+
+    /**
+     * Stop taking messages and write what is queued before the datasource goes away.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() throws InterruptedException {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void runWriter() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatchSize);
+        Throwable failure = new IllegalStateException("Message writer stopped");
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    log.error("Message writer failed on a batch of {}", batch.size(), e);
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Throwable e) {
+            log.error("Message writer stopped", e);
+            failure = e;
+        } finally {
+            running = false;
+            stopped = true;
+            Throwable cause = failure;
+            batch.forEach(pending -> pending.result().completeExceptionally(cause));
+            failQueued(cause);
+        }
+    }
+
+    /**
+     * Fail messages left in the queue once the writer has stopped. Completing a future twice is a no-op.
+     */
+    private void failQueued(Throwable cause) {
+        List<Pending<?>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.result().completeExceptionally(cause));
+    }
+
+    private void write(List<Pending<?>> batch) {
+        stamp(batch);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+            batchSizes.record(batch.size());
+            batch.forEach(this::complete);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.getFirst().result().completeExceptionally(e);
+                return;
+            }
+            log.warn("Batch insert of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (Pending<?> pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(pending)));
+                    batchSizes.record(1);
+                    complete(pending);
+                } catch (RuntimeException single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private static void stamp(List<Pending<?>> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        batch.forEach(pending -> {
+            pending.message().setCreatedAt(now);
+            pending.message().setUpdatedAt(now);
+        });
+    }
+
+    /**
+     * Insert the messages and count them as unread for their recipients, in the current transaction.
+     */
+    private void persist(List<Pending<?>> batch) {
+        insert(batch);
+        SortedMap<UnreadCounters.Recipient, Integer> counts = new TreeMap<>();
+        for (Pending<?> pending : batch) {
+            counts.merge(new UnreadCounters.Recipient(
+                    pending.message().getConversation().getId(), pending.recipientId()), 1, Integer::sum);
+        }
+        unreadCounters.messagesInserted(counts);
+    }
+
+    /**
+     * One multi-row INSERT. The ids are returned in row order, assuming InnoDB allocated them
+     * consecutively; see {@link #verifyIds(List)} for when it may not have.
+     */
+    private void insert(List<Pending<?>> batch) {
+        String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(batch.size(), ROW_PLACEHOLDERS));
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            int index = 1;
+            for (Pending<?> pending : batch) {
+                Message message = pending.message();
+                Timestamp createdAt = Timestamp.valueOf(message.getCreatedAt());
+                statement.setLong(index++, message.getConversation().getId());
+                statement.setLong(index++, message.getSender().getId());
+                statement.setString(index++, message.getContent());
+                statement.setString(index++, message.getMessageType().name());
+                statement.setTimestamp(index++, createdAt);
+                statement.setTimestamp(index++, createdAt);
+            }
+            return statement;
+        }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size() + " generated ids, got " + generated.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Number id = (Number) generated.get(i).values().iterator().next();
+            batch.get(i).message().setId(id.longValue());
+        }
+        if (verifyIds && batch.size() > 1) {
+            verifyIds(batch);
+        }
+    }
+
+    /**
+     * Read the rows back by the ids Connector/J derived and check each is the message it was
+     * assigned to. Fails the transaction if another statement's ids were interleaved with ours.
+     */
+    private void verifyIds(List<Pending<?>> batch) {
+        long firstId = batch.getFirst().message().getId();
+        long lastId = batch.getLast().message().getId();
+        Map<Long, Message> expected = new HashMap<>();
+        batch.forEach(pending -> expected.put(pending.message().getId(), pending.message()));
+        int[] matched = {0};
+        jdbcTemplate.query("SELECT id, conversation_id, sender_id, created_at FROM messages WHERE id BETWEEN ? AND ?",
+                row -> {
+                    Message message = expected.get(row.getLong("id"));
+                    if (message != null
+                            && message.getConversation().getId() == row.getLong("conversation_id")
+                            && message.getSender().getId() == row.getLong("sender_id")
+                            && Timestamp.valueOf(message.getCreatedAt()).equals(row.getTimestamp("created_at"))) {
+                        matched[0]++;
+                    }
+                }, firstId, lastId);
+        if (matched[0] != batch.size()) {
+            throw new IllegalStateException("Batch of " + batch.size() + " messages got non-consecutive ids");
+        }
+    }
+
+    /**
+     * Whether InnoDB allocates consecutive ids to a multi-row INSERT (innodb_autoinc_lock_mode 0 or 1).
+     */
+    private static boolean consecutiveAutoIncrement(JdbcTemplate jdbcTemplate) {
+        try {
+            Integer lockMode = jdbcTemplate.queryForObject("SELECT @@innodb_autoinc_lock_mode", Integer.class);
+            return lockMode != null && lockMode < 2;
+        } catch (RuntimeException e) {
+            log.warn("Could not read innodb_autoinc_lock_mode, verifying batch ids: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> void complete(Pending<T> pending) {
+        try {
+            pending.result().complete(pending.onDurable().apply(pending.message()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.repository.ConversationParticipantStatusRepository;
+import com.thegamersstation.marketplace.messaging.repository.UserUnreadTotalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Periodically recomputes the materialized unread counters from the read watermarks, walking
+ * conversation_participants_status in ID order. Each batch recomputes its participant rows and
+ * the totals of their users in one short transaction.
+ */
+@Slf4j
+@Component
+public class UnreadCountReconciler {
+
+    private final ConversationParticipantStatusRepository participantStatusRepository;
+    private final UserUnreadTotalRepository unreadTotalRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${messaging.unread-reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${messaging.unread-reconciler.batch-size:500}")
+    private int batchSize;
+
+    public UnreadCountReconciler(ConversationParticipantStatusRepository participantStatusRepository,
+                                 UserUnreadTotalRepository unreadTotalRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.participantStatusRepository = participantStatusRepository;
+        this.unreadTotalRepository = unreadTotalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${messaging.unread-reconciler.cron:0 45 3 * * *}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        long afterId = 0;
+        long rows = 0;
+        try {
+            while (true) {
+                List<Object[]> batch = participantStatusRepository.findIdsAndUsersAfter(
+                        afterId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                long fromId = afterId;
+                long toId = (Long) batch.getLast()[0];
+                Set<Long> userIds = new HashSet<>();
+                batch.forEach(row -> userIds.add((Long) row[1]));
+
+                transactionTemplate.executeWithoutResult(status -> {
+                    participantStatusRepository.recomputeUnreadCounts(fromId, toId);
+                    unreadTotalRepository.recompute(userIds);
+                });
+                rows += batch.size();
+                afterId = toId;
+            }
+            log.info("Reconciled unread counters for {} conversation participants", rows);
+        } catch (RuntimeException e) {
+            log.error("Unread counter reconciliation stopped after {} participants", rows, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.entity.ConversationParticipantStatus;
+import com.thegamersstation.marketplace.messaging.repository.ConversationParticipantStatusRepository;
+import com.thegamersstation.marketplace.messaging.repository.MessageRepository;
+import com.thegamersstation.marketplace.messaging.repository.UserUnreadTotalRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * Keeps the materialized unread counters (conversation_participants_status.unread_count and
+ * user_unread_totals) in step with message inserts and read watermarks.
+ *
+ * <p>Both sides lock the participant row before the user's totals row, so sends and reads
+ * cannot deadlock each other. A read that races a send may leave a counter off by one;
+ * {@link UnreadCountReconciler} repairs such drift.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class UnreadCounters {
+
+    private final ConversationParticipantStatusRepository participantStatusRepository;
+    private final UserUnreadTotalRepository unreadTotalRepository;
+    private final MessageRepository messageRepository;
+
+    /**
+     * The participant a message is unread for.
+     */
+    public record Recipient(long conversationId, long userId) implements Comparable<Recipient> {
+
+        @Override
+        public int compareTo(Recipient other) {
+            int byConversation = Long.compare(conversationId, other.conversationId);
+            return byConversation != 0 ? byConversation : Long.compare(userId, other.userId);
+        }
+    }
+
+    /**
+     * Count newly inserted messages for their recipients, in the inserting transaction.
+     * Participant rows are updated in key order first, then the totals in user order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void messagesInserted(SortedMap<Recipient, Integer> counts) {
+        counts.forEach((recipient, count) -> participantStatusRepository.incrementUnreadCount(
+                recipient.conversationId(), recipient.userId(), count));
+        counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparingLong(Recipient::userId)
+                        .thenComparingLong(Recipient::conversationId)))
+                .forEach(entry -> unreadTotalRepository.addUnread(
+                        entry.getKey().conversationId(), entry.getKey().userId(), entry.getValue()));
+    }
+
+    /**
+     * Move the user's read watermark to the latest message in the conversation and clear
+     * their unread counter.
+     * @return the new watermark, or empty when there was nothing new to read
+     */
+    @Transactional
+    public Optional<Long> markRead(Long conversationId, Long userId) {
+        ConversationParticipantStatus status = participantStatusRepository
+                .findForUpdate(conversationId, userId)
+                .orElse(null);
+        if (status == null) {
+            return Optional.empty();
+        }
+        Long latestMessageId = messageRepository.findLatestMessageId(conversationId).orElse(null);
+        if (latestMessageId == null) {
+            return Optional.empty();
+        }
+
+        int unread = status.getUnreadCount();
+        int updated = participantStatusRepository.advanceReadWatermark(
+                conversationId, userId, latestMessageId, LocalDateTime.now());
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        if (unread > 0) {
+            unreadTotalRepository.subtractRead(userId, unread);
+        }
+        return Optional.of(latestMessageId);
+    }
+}
@@ -1,5 +1,6 @@
 package com.thegamersstation.marketplace.notification;
 
+import com.thegamersstation.marketplace.notification.dto.PriceDropNotificationDto;
 import com.thegamersstation.marketplace.user.repository.User;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -12,6 +13,7 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Service
@@ -88,6 +90,43 @@ public class EmailNotificationService {
         }
     }
 
+    /**
+     * Sends price drop emails to a batch of watchers of one post.
+     * The body is rendered once and reused for every recipient in the batch.
+     *
+     * @param recipients   watchers to notify; users without a valid email are skipped
+     * @param notification the coalesced price drop
+     */
+    @Async("priceDropEmailExecutor")
+    public void sendPriceDropNotifications(List<User> recipients, PriceDropNotificationDto notification) {
+        String postLink = frontendUrl + "/product/" + notification.getPostId();
+        String subject = "Price drop | انخفاض السعر";
+        String body = buildPriceDropEmailBody(notification, postLink);
+
+        int sent = 0;
+        for (User recipient : recipients) {
+            String recipientEmail = recipient.getEmail();
+            if (!isValidEmail(recipientEmail)) {
+                continue;
+            }
+            try {
+                MimeMessage mimeMessage = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "UTF-8");
+                helper.setFrom(fromAddress, senderName);
+                helper.setTo(recipientEmail);
+                helper.setSubject(subject);
+                helper.setText(body, true);
+
+                mailSender.send(mimeMessage);
+                sent++;
+            } catch (Exception e) {
+                log.error("Failed to send price drop email to user {} for post {}: {}",
+                        recipient.getId(), notification.getPostId(), e.getMessage());
+            }
+        }
+        log.info("Price drop emails sent for post {}: {}/{}", notification.getPostId(), sent, recipients.size());
+    }
+
     /**
      * Returns {@code true} only when the supplied string is a non-null,
      * non-blank, structurally valid email address.
@@ -123,6 +162,37 @@ public class EmailNotificationService {
                 """.formatted(escapeHtml(senderName), escapeHtml(messagePreview), conversationLink);
     }
 
+    private String buildPriceDropEmailBody(PriceDropNotificationDto notification, String postLink) {
+        return """
+                <div style="font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto;">
+                    <h2 style="color: #333;">Price drop | انخفاض السعر</h2>
+                    <div style="background-color: #f5f5f5; padding: 16px; border-radius: 8px; margin: 16px 0;">
+                        <p style="color: #555; margin: 0 0 8px 0;">%1$s</p>
+                        <p style="margin: 0;">
+                            <span style="color: #999; text-decoration: line-through;">%2$s %4$s</span>
+                            &nbsp;<strong style="color: #28a745;">%3$s %4$s</strong>
+                        </p>
+                    </div>
+                    <div style="text-align: center; margin-top: 24px;">
+                        <a href="%5$s"
+                           style="display: inline-block; padding: 12px 24px; background-color: #007bff;
+                                  color: #fff; text-decoration: none; border-radius: 6px;">
+                            View Post | عرض الإعلان
+                        </a>
+                    </div>
+                    <p style="color: #999; font-size: 12px; margin-top: 24px; text-align: center;">
+                        You are receiving this email because you added this post to your favorites.<br>
+                        تصلك هذه الرسالة لأنك أضفت هذا الإعلان إلى المفضلة
+                    </p>
+                </div>
+                """.formatted(
+                        escapeHtml(notification.getTitle()),
+                        notification.getOldPrice().toPlainString(),
+                        notification.getNewPrice().toPlainString(),
+                        escapeHtml(notification.getCurrency()),
+                        postLink);
+    }
+
     private String escapeHtml(String text) {
         if (text == null) return "";
         return text.replace("&", "&amp;")
@@ -0,0 +1,156 @@
+package com.thegamersstation.marketplace.notification;
+
+import com.thegamersstation.marketplace.favorite.PostFavoriteRepository;
+import com.thegamersstation.marketplace.notification.dto.PriceDropNotificationDto;
+import com.thegamersstation.marketplace.post.PostPriceChangedEvent;
+import com.thegamersstation.marketplace.user.repository.User;
+import com.thegamersstation.marketplace.user.repository.UsersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fans out price drop notifications to the users watching a post.
+ *
+ * <p>Committed price drops are coalesced per post: the first drop opens a window and later
+ * edits inside it only update the latest price. When the window closes a single notification
+ * goes out with the original and final price, so an owner nudging the price several times
+ * doesn't spam watchers. Fan-out runs on the scheduler thread, never on the update request.</p>
+ */
+@Slf4j
+@Component
+public class PriceDropNotifier {
+
+    private final PostFavoriteRepository postFavoriteRepository;
+    private final UsersRepository usersRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EmailNotificationService emailNotificationService;
+    private final long coalesceWindowMs;
+    private final int emailBatchSize;
+
+    private final ConcurrentHashMap<Long, PendingPriceDrop> pending = new ConcurrentHashMap<>();
+
+    public PriceDropNotifier(
+            PostFavoriteRepository postFavoriteRepository,
+            UsersRepository usersRepository,
+            SimpMessagingTemplate messagingTemplate,
+            EmailNotificationService emailNotificationService,
+            @Value("${notification.price-drop.coalesce-window-ms:60000}") long coalesceWindowMs,
+            @Value("${notification.price-drop.email-batch-size:200}") int emailBatchSize
+    ) {
+        this.postFavoriteRepository = postFavoriteRepository;
+        this.usersRepository = usersRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.emailNotificationService = emailNotificationService;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.emailBatchSize = emailBatchSize;
+    }
+
+    /**
+     * A drop opens a window for the post; any later change inside the window, including a raise,
+     * is folded into it so the notification reflects the final price.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPriceChanged(PostPriceChangedEvent event) {
+        PendingPriceDrop change = PendingPriceDrop.of(event, System.currentTimeMillis());
+        if (event.isDrop()) {
+            pending.merge(event.postId(), change, PendingPriceDrop::coalesce);
+        } else {
+            pending.computeIfPresent(event.postId(), (postId, existing) -> existing.coalesce(change));
+        }
+    }
+
+    /**
+     * Dispatch every coalesced drop whose window has closed.
+     */
+    @Scheduled(fixedDelayString = "${notification.price-drop.dispatch-interval-ms:10000}")
+    public void dispatchDue() {
+        long cutoff = System.currentTimeMillis() - coalesceWindowMs;
+        for (Map.Entry<Long, PendingPriceDrop> entry : pending.entrySet()) {
+            PendingPriceDrop drop = entry.getValue();
+            if (drop.firstSeenAt() <= cutoff && pending.remove(entry.getKey(), drop)) {
+                try {
+                    dispatch(drop);
+                } catch (Exception e) {
+                    log.error("Failed to dispatch price drop for post {}: {}", drop.postId(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void dispatch(PendingPriceDrop drop) {
+        // A later edit may have raised the price back; only notify on a net drop
+        if (drop.newPrice().compareTo(drop.oldPrice()) >= 0) {
+            return;
+        }
+
+        // Read from the database, not a per-instance cache: the watcher may have favorited on another instance
+        List<Long> watcherIds = postFavoriteRepository.findUserIdsByPostId(drop.postId());
+        if (watcherIds.isEmpty()) {
+            return;
+        }
+
+        PriceDropNotificationDto notification = PriceDropNotificationDto.builder()
+            .postId(drop.postId())
+            .title(drop.title())
+            .oldPrice(drop.oldPrice())
+            .newPrice(drop.newPrice())
+            .currency(drop.currency())
+            .build();
+
+        List<Long> recipientIds = new ArrayList<>(watcherIds.size());
+        for (Long watcherId : watcherIds) {
+            if (watcherId.equals(drop.ownerId())) {
+                continue;
+            }
+            recipientIds.add(watcherId);
+            try {
+                messagingTemplate.convertAndSendToUser(String.valueOf(watcherId), "/queue/notifications", notification);
+            } catch (Exception e) {
+                log.error("Failed to push price drop for post {} to user {}", drop.postId(), watcherId, e);
+            }
+        }
+
+        // One user lookup per batch, handed to the price drop email executor as a unit
+        for (int from = 0; from < recipientIds.size(); from += emailBatchSize) {
+            List<Long> batchIds = recipientIds.subList(from, Math.min(from + emailBatchSize, recipientIds.size()));
+            List<User> recipients = usersRepository.findAllById(batchIds);
+            emailNotificationService.sendPriceDropNotifications(recipients, notification);
+        }
+
+        log.info("Price drop for post {} dispatched to {} watchers", drop.postId(), recipientIds.size());
+    }
+
+    private record PendingPriceDrop(
+            Long postId,
+            Long ownerId,
+            String title,
+            BigDecimal oldPrice,
+            BigDecimal newPrice,
+            String currency,
+            long firstSeenAt
+    ) {
+        static PendingPriceDrop of(PostPriceChangedEvent event, long now) {
+            return new PendingPriceDrop(event.postId(), event.ownerId(), event.title(),
+                event.oldPrice(), event.newPrice(), event.currency(), now);
+        }
+
+        /**
+         * Keep the window start and pre-drop price, take everything else from the newer edit.
+         */
+        PendingPriceDrop coalesce(PendingPriceDrop newer) {
+            return new PendingPriceDrop(postId, newer.ownerId, newer.title,
+                oldPrice, newer.newPrice, newer.currency, firstSeenAt);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.thegamersstation.marketplace.notification.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Price drop notification pushed to users watching a post")
+public class PriceDropNotificationDto {
+
+    @Schema(description = "Notification type", example = "PRICE_DROP")
+    @Builder.Default
+    private String type = "PRICE_DROP";
+
+    @Schema(description = "Post ID", example = "42")
+    private Long postId;
+
+    @Schema(description = "Post title", example = "PS5 Slim with two controllers")
+    private String title;
+
+    @Schema(description = "Price before the drop", example = "2100.00")
+    private BigDecimal oldPrice;
+
+    @Schema(description = "New price", example = "1850.00")
+    private BigDecimal newPrice;
+
+    @Schema(description = "Currency code", example = "SAR")
+    private String currency;
+}
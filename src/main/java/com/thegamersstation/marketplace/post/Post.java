@@ -117,6 +117,14 @@ public class Post {
     @Builder.Default
     private List<PostImage> images = new ArrayList<>();
 
+    /**
+     * Denormalized number of users who favorited this post.
+     * Maintained in batches by FavoriteCountBuffer; pending deltas are added on read.
+     */
+    @Column(name = "favorite_count", nullable = false)
+    @Builder.Default
+    private Integer favoriteCount = 0;
+
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
@@ -30,6 +30,18 @@ public class PostImage {
     @Column(name = "thumbnail_url", nullable = false, length = 500)
     private String thumbnailUrl;
 
+    /**
+     * Widths of the stored renditions, comma-separated (see ImageRenditions)
+     */
+    @Column(name = "rendition_widths", length = 64)
+    private String renditionWidths;
+
+    /**
+     * BlurHash placeholder shown while the image loads; null until renditions exist
+     */
+    @Column(length = 64)
+    private String placeholder;
+
     @Column(name = "provider_public_id", length = 200)
     private String providerPublicId;
 
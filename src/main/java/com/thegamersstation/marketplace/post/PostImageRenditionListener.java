@@ -0,0 +1,30 @@
+package com.thegamersstation.marketplace.post;
+
+import com.thegamersstation.marketplace.media.MediaRenditionsReadyEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Switches post images over to their thumbnail and renditions once they have been generated.
+ * Posts created while the upload was still processing were saved with the original URL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostImageRenditionListener {
+
+    private final PostImageRepository postImageRepository;
+
+    @EventListener
+    @Transactional
+    public void onRenditionsReady(MediaRenditionsReadyEvent event) {
+        int updated = postImageRepository.updatePendingRenditions(
+                event.originalUrl(), event.thumbnailUrl(), event.renditionWidths(), event.placeholder());
+        if (updated > 0) {
+            log.debug("Updated renditions for {} post image(s) of {}", updated, event.originalUrl());
+        }
+    }
+}
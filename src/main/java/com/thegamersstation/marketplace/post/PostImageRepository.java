@@ -1,8 +1,42 @@
 package com.thegamersstation.marketplace.post;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PostImageRepository extends JpaRepository<PostImage, Long> {
+
+    /**
+     * Attach generated renditions to images that were saved before processing finished.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PostImage i SET i.thumbnailUrl = :thumbnailUrl, i.renditionWidths = :renditionWidths, " +
+           "i.placeholder = :placeholder WHERE i.url = :url AND i.renditionWidths IS NULL")
+    int updatePendingRenditions(String url, String thumbnailUrl, String renditionWidths, String placeholder);
+
+    /**
+     * Keyset page of images still missing renditions, for the backfill job.
+     */
+    @Query("SELECT i FROM PostImage i WHERE i.id > :afterId AND i.renditionWidths IS NULL ORDER BY i.id")
+    List<PostImage> findMissingRenditionsAfter(Long afterId, Pageable pageable);
+
+    /**
+     * Every original and thumbnail URL, for the orphan media collector. The MySQL driver streams
+     * rows with this fetch size instead of buffering the result; consume inside a read-only transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.url, i.thumbnailUrl FROM PostImage i")
+    Stream<Object[]> streamImageUrls();
 }
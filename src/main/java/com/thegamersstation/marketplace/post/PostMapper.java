@@ -23,6 +23,7 @@ public abstract class PostMapper {
     @Mapping(target = "cityId", source = "city.id")
     @Mapping(target = "cityName", expression = "java(getCityName(post))")
     @Mapping(target = "images", expression = "java(mapImages(post.getImages()))")
+    @Mapping(target = "favoritedByMe", ignore = true)
     @Mapping(target = "sold", expression = "java(post.getStatus() == com.thegamersstation.marketplace.post.Post.PostStatus.SOLD)")
     public abstract PostDto toDto(Post post);
     
@@ -30,6 +31,8 @@ public abstract class PostMapper {
     @Mapping(target = "url", source = "url")
     @Mapping(target = "thumbnailUrl", source = "thumbnailUrl")
     @Mapping(target = "sortOrder", source = "sortOrder")
+    @Mapping(target = "renditions", expression = "java(com.thegamersstation.marketplace.media.ImageRenditions.toDtos(image.getUrl(), image.getRenditionWidths()))")
+    @Mapping(target = "placeholder", source = "placeholder")
     public abstract PostImageDto toImageDto(PostImage image);
     
     protected String getCategoryName(Post post) {
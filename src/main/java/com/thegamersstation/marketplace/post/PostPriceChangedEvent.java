@@ -0,0 +1,20 @@
+package com.thegamersstation.marketplace.post;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when an owner changes the fixed price of a post.
+ * Listeners should react after the update commits (see PriceDropNotifier).
+ */
+public record PostPriceChangedEvent(
+        Long postId,
+        Long ownerId,
+        String title,
+        BigDecimal oldPrice,
+        BigDecimal newPrice,
+        String currency
+) {
+    public boolean isDrop() {
+        return oldPrice != null && newPrice != null && newPrice.compareTo(oldPrice) < 0;
+    }
+}
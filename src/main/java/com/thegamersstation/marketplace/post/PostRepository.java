@@ -4,6 +4,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -135,4 +136,12 @@ public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificat
     
     @Query("SELECT p FROM Post p WHERE p.store.id = :storeId AND p.status IN ('ACTIVE', 'SOLD')")
     Page<Post> findByStoreIdAndActive(@Param("storeId") Long storeId, Pageable pageable);
+    
+    /**
+     * Apply the same favorite counter delta to a batch of posts.
+     * updated_at is pinned to its current value so counter flushes don't reorder "recently updated" listings.
+     */
+    @Modifying
+    @Query("UPDATE Post p SET p.favoriteCount = p.favoriteCount + :delta, p.updatedAt = p.updatedAt WHERE p.id IN :ids")
+    int incrementFavoriteCount(@Param("ids") java.util.Collection<Long> ids, @Param("delta") int delta);
 }
@@ -10,6 +10,7 @@ import com.thegamersstation.marketplace.city.City;
 import com.thegamersstation.marketplace.city.CityRepository;
 import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
 import com.thegamersstation.marketplace.common.util.ContentSanitizer;
+import com.thegamersstation.marketplace.favorite.FavoriteService;
 import com.thegamersstation.marketplace.media.MediaService;
 import com.thegamersstation.marketplace.security.SecurityUtil;
 import com.thegamersstation.marketplace.store.Store;
@@ -22,18 +23,21 @@ import com.thegamersstation.marketplace.user.repository.User;
 import com.thegamersstation.marketplace.user.repository.UsersRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,6 +55,8 @@ public class PostService {
     private final MediaService mediaService;
     private final QuestionRepository questionRepository;
     private final SurveyResponseRepository surveyResponseRepository;
+    private final FavoriteService favoriteService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public PostDto createPost(CreatePostRequest request, Long userId) {
@@ -100,19 +106,13 @@ public class PostService {
             .images(new ArrayList<>())
             .build();
         
-        // Add images with derived thumbnail URLs
+        // Add images with thumbnail and rendition info
         for (int i = 0; i < request.getImageUrls().size(); i++) {
-            String imageUrl = request.getImageUrls().get(i);
-            PostImage image = PostImage.builder()
-                .post(post)
-                .url(imageUrl)
-                .thumbnailUrl(mediaService.deriveThumbnailUrl(imageUrl))
-                .sortOrder(i)
-                .build();
-            post.getImages().add(image);
+            post.getImages().add(newPostImage(post, request.getImageUrls().get(i), i, null));
         }
         
         Post savedPost = postRepository.save(post);
+        mediaService.attachImages(request.getImageUrls());
         return postMapper.toDto(savedPost);
     }
     
@@ -142,6 +142,7 @@ public class PostService {
             ));
         }
         
+        BigDecimal previousPrice = post.getPrice();
         if (request.getPrice() != null) {
             post.setPrice(request.getPrice());
         }
@@ -167,26 +168,44 @@ public class PostService {
         if (request.getImageUrls() != null) {
             // Remove all existing images (this will trigger cascade delete)
             List<PostImage> oldImages = new ArrayList<>(post.getImages());
+            Map<String, PostImage> oldImagesByUrl = oldImages.stream()
+                .collect(Collectors.toMap(PostImage::getUrl, image -> image, (a, b) -> a));
             post.getImages().clear();
             
             // Flush to ensure old images are deleted before adding new ones
             postRepository.flush();
             
-            // Add new images with derived thumbnail URLs
+            // Add new images, keeping renditions of images that were already attached
             for (int i = 0; i < request.getImageUrls().size(); i++) {
                 String imageUrl = request.getImageUrls().get(i);
-                PostImage image = PostImage.builder()
-                    .post(post)
-                    .url(imageUrl)
-                    .thumbnailUrl(mediaService.deriveThumbnailUrl(imageUrl))
-                    .sortOrder(i)
-                    .build();
-                post.getImages().add(image);
+                post.getImages().add(newPostImage(post, imageUrl, i, oldImagesByUrl.get(imageUrl)));
             }
+
+            // Move references per occurrence: attach what was added, release what the post held and dropped
+            List<String> addedUrls = new ArrayList<>(request.getImageUrls());
+            List<String> removedUrls = new ArrayList<>(oldImages.stream().map(PostImage::getUrl).toList());
+            oldImages.forEach(image -> addedUrls.remove(image.getUrl()));
+            request.getImageUrls().forEach(removedUrls::remove);
+            mediaService.attachImages(addedUrls);
+            mediaService.detachImages(removedUrls);
         }
         
         Post updatedPost = postRepository.save(post);
-        return postMapper.toDto(updatedPost);
+        
+        // Watchers are notified after commit, off the request thread (see PriceDropNotifier)
+        if (previousPrice != null && updatedPost.getPrice() != null
+                && updatedPost.getPrice().compareTo(previousPrice) != 0) {
+            eventPublisher.publishEvent(new PostPriceChangedEvent(
+                updatedPost.getId(),
+                userId,
+                updatedPost.getTitle(),
+                previousPrice,
+                updatedPost.getPrice(),
+                updatedPost.getCurrency()
+            ));
+        }
+        
+        return toDto(updatedPost);
     }
     
     @Transactional(readOnly = true)
@@ -195,7 +214,7 @@ public class PostService {
             .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         
         if (post.getStatus() == Post.PostStatus.ACTIVE) {
-            return postMapper.toDto(post);
+            return toDto(post);
         }
         
         // Allow owner and admin to view SOLD posts
@@ -204,7 +223,7 @@ public class PostService {
             boolean isOwner = currentUserId != null && currentUserId.equals(post.getOwner().getId());
             boolean isAdmin = SecurityUtil.isAdmin();
             if (isOwner || isAdmin) {
-                return postMapper.toDto(post);
+                return toDto(post);
             }
         }
         
@@ -236,7 +255,7 @@ public class PostService {
         } else {
             postsPage = postRepository.searchPostsWithPrice(categoryId, cityId, type, condition, minPrice, maxPrice, pageable);
         }
-        return PageResponseDto.of(postsPage.map(postMapper::toDto));
+        return toPageResponse(postsPage);
     }
     
     @Transactional(readOnly = true)
@@ -254,19 +273,50 @@ public class PostService {
         Page<Post> postsPage = postRepository.advancedSearchPosts(
             query, categoryId, cityId, regionId, type, condition, minPrice, maxPrice, pageable
         );
-        return PageResponseDto.of(postsPage.map(postMapper::toDto));
+        return toPageResponse(postsPage);
     }
     
     @Transactional(readOnly = true)
     public PageResponseDto<PostDto> getMyPosts(Long userId, Pageable pageable) {
         Page<Post> postsPage = postRepository.findByOwnerIdAndNotDeleted(userId, pageable);
-        return PageResponseDto.of(postsPage.map(postMapper::toDto));
+        return toPageResponse(postsPage);
     }
     
     @Transactional(readOnly = true)
     public PageResponseDto<PostDto> getPostsByStore(Long storeId, Pageable pageable) {
         Page<Post> postsPage = postRepository.findByStoreIdAndActive(storeId, pageable);
-        return PageResponseDto.of(postsPage.map(postMapper::toDto));
+        return toPageResponse(postsPage);
+    }
+    
+    /**
+     * Build an image row, keeping the rendition state of an existing row for the same URL.
+     * New images point thumbnailUrl at the original until their renditions are ready.
+     */
+    private PostImage newPostImage(Post post, String imageUrl, int sortOrder, PostImage previous) {
+        boolean keepPrevious = previous != null && previous.getRenditionWidths() != null;
+        return PostImage.builder()
+            .post(post)
+            .url(imageUrl)
+            .thumbnailUrl(keepPrevious ? previous.getThumbnailUrl() : mediaService.resolveThumbnailUrl(imageUrl))
+            .renditionWidths(keepPrevious ? previous.getRenditionWidths() : mediaService.resolveRenditionWidths(imageUrl))
+            .placeholder(keepPrevious ? previous.getPlaceholder() : mediaService.resolvePlaceholder(imageUrl))
+            .sortOrder(sortOrder)
+            .build();
+    }
+
+    /**
+     * Map a page of posts and fill in favorite state for the current viewer.
+     */
+    private PageResponseDto<PostDto> toPageResponse(Page<Post> postsPage) {
+        PageResponseDto<PostDto> response = PageResponseDto.of(postsPage.map(postMapper::toDto));
+        favoriteService.applyFavoriteState(response.getContent(), SecurityUtil.getCurrentUserId());
+        return response;
+    }
+    
+    private PostDto toDto(Post post) {
+        PostDto dto = postMapper.toDto(post);
+        favoriteService.applyFavoriteState(List.of(dto), SecurityUtil.getCurrentUserId());
+        return dto;
     }
     
     @Transactional
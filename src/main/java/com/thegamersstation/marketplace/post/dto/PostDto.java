@@ -38,6 +38,13 @@ public class PostDto {
     private Post.PostStatus status;
     private boolean sold;
     private List<PostImageDto> images;
+    
+    @Schema(description = "Number of users who favorited this post", example = "17")
+    private long favoriteCount;
+    
+    @Schema(description = "Whether the current user has favorited this post", example = "false")
+    private boolean favoritedByMe;
+    
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
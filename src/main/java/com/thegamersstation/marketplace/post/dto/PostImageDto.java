@@ -1,11 +1,20 @@
 package com.thegamersstation.marketplace.post.dto;
 
+import com.thegamersstation.marketplace.media.dto.ImageRenditionDto;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class PostImageDto {
     private Long id;
     private String url;
     private String thumbnailUrl;
+    private List<ImageRenditionDto> renditions;
+
+    /**
+     * BlurHash string to paint a blurred preview before the image loads (may be null)
+     */
+    private String placeholder;
     private Integer sortOrder;
 }
@@ -1,5 +1,6 @@
 package com.thegamersstation.marketplace.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,6 +39,10 @@ public class SecurityConfig {
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authorizeHttpRequests(auth -> auth
+                // Async results (CompletableFuture returns) are re-dispatched after the original
+                // request was authorized; the JWT filter does not run again on that dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Public endpoints - Authentication
                 .requestMatchers(
                     "/auth/otp/request",
@@ -72,8 +77,9 @@ public class SecurityConfig {
                     "/posts/**"
                 ).permitAll()
                 
-                // Public endpoints - Static resources (uploaded files)
+                // Public endpoints - Static resources (uploaded files, on-demand renditions)
                 .requestMatchers("/uploads/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/media/render/**").permitAll()
                 
                 // Public endpoints - WebSocket handshake and SockJS info
                 .requestMatchers(
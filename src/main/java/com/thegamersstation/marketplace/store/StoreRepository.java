@@ -1,9 +1,15 @@
 package com.thegamersstation.marketplace.store;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface StoreRepository extends JpaRepository<Store, Long> {
@@ -17,4 +23,11 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
     boolean existsByOwnerId(Long ownerId);
 
     java.util.List<Store> findByIsActiveTrue();
+
+    /**
+     * Logo and banner URLs, streamed for the orphan media collector.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT s.logoUrl, s.bannerUrl FROM Store s WHERE s.logoUrl IS NOT NULL OR s.bannerUrl IS NOT NULL")
+    Stream<Object[]> streamImageUrls();
 }
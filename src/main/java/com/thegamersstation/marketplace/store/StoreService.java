@@ -3,6 +3,7 @@ package com.thegamersstation.marketplace.store;
 import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
 import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
 import com.thegamersstation.marketplace.common.util.SlugUtil;
+import com.thegamersstation.marketplace.media.MediaService;
 import com.thegamersstation.marketplace.store.dto.CreateStoreRequest;
 import com.thegamersstation.marketplace.store.dto.StoreDto;
 import com.thegamersstation.marketplace.store.dto.UpdateStoreRequest;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +27,7 @@ public class StoreService {
     private final StoreRepository storeRepository;
     private final UsersRepository usersRepository;
     private final StoreMapper storeMapper;
+    private final MediaService mediaService;
     
     /**
      * Create a new store for a store manager
@@ -79,6 +82,8 @@ public class StoreService {
             .build();
         
         Store saved = storeRepository.save(store);
+        mediaService.attachImage(saved.getLogoUrl());
+        mediaService.attachImage(saved.getBannerUrl());
         log.info("Created store: {} for owner: {}", saved.getId(), ownerId);
         
         return storeMapper.toDto(saved);
@@ -115,10 +120,12 @@ public class StoreService {
         }
         
         if (request.getLogoUrl() != null) {
+            replaceImage(store.getLogoUrl(), request.getLogoUrl());
             store.setLogoUrl(request.getLogoUrl());
         }
         
         if (request.getBannerUrl() != null) {
+            replaceImage(store.getBannerUrl(), request.getBannerUrl());
             store.setBannerUrl(request.getBannerUrl());
         }
         
@@ -201,4 +208,16 @@ public class StoreService {
         storeRepository.save(store);
         log.info("Deactivated store: {}", storeId);
     }
+
+    /**
+     * Move the image reference from the stored URL to the new one; the old URL comes from the
+     * entity, so only a reference it actually holds is released.
+     */
+    private void replaceImage(String oldUrl, String newUrl) {
+        if (Objects.equals(oldUrl, newUrl)) {
+            return;
+        }
+        mediaService.attachImage(newUrl);
+        mediaService.detachImage(oldUrl);
+    }
 }
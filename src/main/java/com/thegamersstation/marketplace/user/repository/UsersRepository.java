@@ -1,9 +1,15 @@
 package com.thegamersstation.marketplace.user.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UsersRepository extends JpaRepository<User, Long> {
@@ -15,4 +21,12 @@ public interface UsersRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(String username);
+
+    /**
+     * Profile and background image URLs, streamed for the orphan media collector.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.profileImage, u.backgroundImage FROM User u " +
+           "WHERE u.profileImage IS NOT NULL OR u.backgroundImage IS NOT NULL")
+    Stream<Object[]> streamImageUrls();
 }
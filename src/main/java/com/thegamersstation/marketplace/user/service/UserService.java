@@ -3,6 +3,7 @@ package com.thegamersstation.marketplace.user.service;
 import com.thegamersstation.marketplace.common.exception.BusinessRuleException;
 import com.thegamersstation.marketplace.common.exception.ResourceNotFoundException;
 import com.thegamersstation.marketplace.city.CityRepository;
+import com.thegamersstation.marketplace.media.MediaService;
 import com.thegamersstation.marketplace.user.repository.User;
 import com.thegamersstation.marketplace.user.repository.UsersRepository;
 import com.thegamersstation.marketplace.user.dto.PublicUserProfileDto;
@@ -14,6 +15,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,6 +25,7 @@ public class UserService {
     private final UsersRepository usersRepository;
     private final CityRepository cityRepository;
     private final UserMapper userMapper;
+    private final MediaService mediaService;
 
     @Transactional(readOnly = true)
     public UserProfileDto getCurrentUserProfile(Long userId) {
@@ -81,9 +85,11 @@ public class UserService {
 
         // Update profile images
         if (updateDto.getProfileImage() != null) {
+            replaceImage(user.getProfileImage(), updateDto.getProfileImage());
             user.setProfileImage(updateDto.getProfileImage());
         }
         if (updateDto.getBackgroundImage() != null) {
+            replaceImage(user.getBackgroundImage(), updateDto.getBackgroundImage());
             user.setBackgroundImage(updateDto.getBackgroundImage());
         }
 
@@ -134,4 +140,16 @@ public class UserService {
         
         return profileDto;
     }
+
+    /**
+     * Move the image reference from the stored URL to the new one; the old URL comes from the
+     * entity, so only a reference it actually holds is released.
+     */
+    private void replaceImage(String oldUrl, String newUrl) {
+        if (Objects.equals(oldUrl, newUrl)) {
+            return;
+        }
+        mediaService.attachImage(newUrl);
+        mediaService.detachImage(oldUrl);
+    }
 }
@@ -0,0 +1,234 @@
+package com.thegamersstation.marketplace.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which users have a STOMP session open on this instance.
+ *
+ * <p>Sessions are registered on {@link SessionConnectedEvent} and removed on
+ * {@link SessionDisconnectEvent}; a user with several tabs or devices stays online until the last
+ * one closes. Every inbound frame, heart-beats included, refreshes its session
+ * ({@link #touch}). Sessions that negotiated heart-beats and stay silent for
+ * messaging.presence.missed-heartbeats intervals stop counting as online, in case a disconnect
+ * was never reported; they are kept until it is, and the next frame brings them back online.
+ * Lookups and session counting are lock-free.</p>
+ *
+ * <p>With the broker relay, users connected to other instances are found through the shared
+ * user registry.</p>
+ */
+@Slf4j
+@Component
+public class PresenceRegistry {
+
+    private final ObjectProvider<SimpUserRegistry> userRegistry;
+    private final boolean relay;
+    private final long heartbeatMs;
+    private final int missedHeartbeats;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, UserSessions> users = new ConcurrentHashMap<>();
+    private final AtomicInteger onlineUsers = new AtomicInteger();
+
+    private static final class Session {
+        private final long userId;
+        /** 0 when the client sends no heart-beats and silence means nothing */
+        private final long staleAfterMs;
+        private volatile long lastSeen;
+        /** Counted in its user's sessions; false while silent */
+        private final AtomicBoolean online = new AtomicBoolean();
+
+        private Session(long userId, long staleAfterMs, long lastSeen) {
+            this.userId = userId;
+            this.staleAfterMs = staleAfterMs;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    /**
+     * Open session count of one user; -1 once the entry was retired from the map.
+     */
+    private static final class UserSessions {
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * @return the count before this session, or -1 if the entry is retired
+         */
+        private int acquire() {
+            while (true) {
+                int current = count.get();
+                if (current < 0) {
+                    return -1;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    public PresenceRegistry(
+            ObjectProvider<SimpUserRegistry> userRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${messaging.websocket.broker.mode:simple}") String brokerMode,
+            @Value("${messaging.websocket.heartbeat-ms:10000}") long heartbeatMs,
+            @Value("${messaging.presence.missed-heartbeats:3}") int missedHeartbeats
+    ) {
+        this.userRegistry = userRegistry;
+        this.relay = "relay".equalsIgnoreCase(brokerMode);
+        this.heartbeatMs = heartbeatMs;
+        this.missedHeartbeats = missedHeartbeats;
+        meterRegistry.gauge("messaging.presence.users", onlineUsers);
+        meterRegistry.gauge("messaging.presence.sessions", sessions, ConcurrentHashMap::size);
+    }
+
+    public boolean isOnline(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        UserSessions local = users.get(userId);
+        if (local != null && local.count.get() > 0) {
+            return true;
+        }
+        if (!relay) {
+            return false;
+        }
+        SimpUserRegistry registry = userRegistry.getIfAvailable();
+        return registry != null && registry.getUser(String.valueOf(userId)) != null;
+    }
+
+    /**
+     * Record activity on a session; called for every inbound frame. A session dropped for silence
+     * is online again.
+     */
+    public void touch(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            session.lastSeen = System.currentTimeMillis();
+            if (!session.online.get()) {
+                log.debug("WebSocket session {} of user {} is active again", sessionId, session.userId);
+                goOnline(sessionId, session);
+            }
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Long userId = userId(event.getUser());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (userId == null || sessionId == null) {
+            return;
+        }
+        Session session = new Session(userId, staleAfterMs(event.getMessage()), System.currentTimeMillis());
+        if (sessions.putIfAbsent(sessionId, session) == null) {
+            goOnline(sessionId, session);
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        Session session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session != null) {
+            goOffline(session);
+        }
+    }
+
+    /**
+     * Stop counting sessions that missed their heart-beats. They stay registered: a late frame
+     * brings them back ({@link #touch}), and the disconnect removes them.
+     */
+    @Scheduled(fixedDelayString = "${messaging.presence.sweep-interval-ms:15000}")
+    public void evictStaleSessions() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((sessionId, session) -> {
+            if (session.staleAfterMs > 0 && now - session.lastSeen > session.staleAfterMs && session.online.get()) {
+                log.debug("WebSocket session {} of user {} went silent", sessionId, session.userId);
+                goOffline(session);
+            }
+        });
+    }
+
+    /**
+     * Count the session for its user. Undone right away if the session was closed meanwhile;
+     * the online flag makes sure each count is released exactly once.
+     */
+    private void goOnline(String sessionId, Session session) {
+        if (!session.online.compareAndSet(false, true)) {
+            return;
+        }
+        long userId = session.userId;
+        while (true) {
+            UserSessions user = users.computeIfAbsent(userId, id -> new UserSessions());
+            int previous = user.acquire();
+            if (previous >= 0) {
+                if (previous == 0) {
+                    onlineUsers.incrementAndGet();
+                    log.debug("User {} is online", userId);
+                }
+                break;
+            }
+            // Retired by a concurrent release; replace it
+            users.remove(userId, user);
+        }
+        if (sessions.get(sessionId) != session) {
+            goOffline(session);
+        }
+    }
+
+    private void goOffline(Session session) {
+        if (!session.online.compareAndSet(true, false)) {
+            return;
+        }
+        UserSessions user = users.get(session.userId);
+        if (user != null && user.count.decrementAndGet() == 0) {
+            onlineUsers.decrementAndGet();
+            log.debug("User {} is offline", session.userId);
+            if (user.count.compareAndSet(0, -1)) {
+                users.remove(session.userId, user);
+            }
+        }
+    }
+
+    /**
+     * Silence tolerated from a session, from the heart-beat the client offered in its CONNECT frame.
+     */
+    private long staleAfterMs(Message<?> connected) {
+        Object connect = connected.getHeaders().get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (!(connect instanceof Message<?> connectMessage) || heartbeatMs <= 0) {
+            return 0;
+        }
+        long clientSendMs = StompHeaderAccessor.wrap(connectMessage).getHeartbeat()[0];
+        return clientSendMs > 0 ? Math.max(clientSendMs, heartbeatMs) * missedHeartbeats : 0;
+    }
+
+    private static Long userId(Principal principal) {
+        if (principal == null || principal.getName() == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(principal.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.thegamersstation.marketplace.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces typing frames before they reach /topic/conversation.{id}.typing.
+ *
+ * <p>Clients send a typing frame on every keystroke. Per user and conversation at most one
+ * "typing" broadcast goes out per messaging.typing.broadcast-interval-ms; the frames in between
+ * only extend the indicator. "Stopped" is broadcast once, when the client says so, when the user
+ * sends the message, or when no frame arrived for messaging.typing.expire-after-ms (closed tab,
+ * lost connection).</p>
+ */
+@Slf4j
+@Component
+public class TypingIndicators {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long broadcastIntervalMs;
+    private final long expireAfterMs;
+    private final Counter suppressed;
+
+    private final ConcurrentHashMap<Key, Typing> typing = new ConcurrentHashMap<>();
+
+    private record Key(long conversationId, long userId) {
+    }
+
+    private static final class Typing {
+        private final AtomicLong broadcastAt = new AtomicLong();
+        private volatile long expiresAt;
+    }
+
+    public TypingIndicators(
+            SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${messaging.typing.broadcast-interval-ms:3000}") long broadcastIntervalMs,
+            @Value("${messaging.typing.expire-after-ms:6000}") long expireAfterMs
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.broadcastIntervalMs = broadcastIntervalMs;
+        this.expireAfterMs = expireAfterMs;
+        this.suppressed = Counter.builder("messaging.typing.suppressed")
+                .description("Typing frames not rebroadcast")
+                .register(meterRegistry);
+        meterRegistry.gauge("messaging.typing.active", typing, ConcurrentHashMap::size);
+    }
+
+    public void update(Long conversationId, Long userId, boolean isTyping) {
+        if (!isTyping) {
+            stop(conversationId, userId);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Typing state = typing.computeIfAbsent(new Key(conversationId, userId), key -> new Typing());
+        state.expiresAt = now + expireAfterMs;
+        long last = state.broadcastAt.get();
+        if (now - last >= broadcastIntervalMs && state.broadcastAt.compareAndSet(last, now)) {
+            broadcast(conversationId, userId, true);
+        } else {
+            suppressed.increment();
+        }
+    }
+
+    public void stop(Long conversationId, Long userId) {
+        if (typing.remove(new Key(conversationId, userId)) != null) {
+            broadcast(conversationId, userId, false);
+        }
+    }
+
+    /**
+     * Broadcast "stopped" for indicators nobody refreshed.
+     */
+    @Scheduled(fixedDelayString = "${messaging.typing.sweep-interval-ms:1000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        typing.forEach((key, state) -> {
+            if (state.expiresAt <= now && typing.remove(key, state)) {
+                broadcast(key.conversationId(), key.userId(), false);
+            }
+        });
+    }
+
+    private void broadcast(long conversationId, long userId, boolean isTyping) {
+        try {
+            messagingTemplate.convertAndSend(
+                    "/topic/conversation." + conversationId + ".typing",
+                    WebSocketMessagingController.TypingStatusDto.builder()
+                            .userId(userId)
+                            .typing(isTyping)
+                            .build());
+        } catch (Exception e) {
+            log.error("Failed to broadcast typing status via WebSocket", e);
+        }
+    }
+}
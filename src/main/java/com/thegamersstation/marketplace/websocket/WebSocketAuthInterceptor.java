@@ -1,6 +1,6 @@
 package com.thegamersstation.marketplace.websocket;
 
-import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
 import com.thegamersstation.marketplace.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,11 +28,14 @@ import java.util.regex.Pattern;
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
     
     private final JwtUtil jwtUtil;
-    private final ConversationRepository conversationRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final PresenceRegistry presenceRegistry;
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
     private static final Pattern CONVERSATION_TOPIC_PATTERN = 
-        Pattern.compile("/topic/conversation\\.(\\d+)\\.");
+        Pattern.compile("/topic/conversation\\.(\\d+)\\.[a-z]+");
+    private static final String APPLICATION_PREFIX = "/app/";
+    private static final String USER_PREFIX = "/user/";
     
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -41,6 +44,9 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
         if (accessor == null) {
             return message;
         }
+        
+        // Any frame, heart-beats included, shows the session is alive
+        presenceRegistry.touch(accessor.getSessionId());
 
         if (StompCommand.CONNECT.equals(accessor.getCommand())) {
             return handleConnect(accessor, message);
@@ -49,6 +55,10 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
         if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
             return handleSubscribe(accessor, message);
         }
+
+        if (StompCommand.SEND.equals(accessor.getCommand())) {
+            return handleSend(accessor, message);
+        }
         
         return message;
     }
@@ -87,17 +97,22 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
     }
     
     /**
-     * Authorize SUBSCRIBE commands: verify the user is a participant of the conversation
-     * before allowing subscription to conversation-specific topics.
+     * Authorize SUBSCRIBE commands. Clients may subscribe to their own user queues, to
+     * application destinations, and to the topics of conversations they participate in.
+     * Every other broker destination is refused, in particular the relay's user registry and
+     * unresolved-user broadcasts, which carry other users' sessions and messages.
      */
     private Message<?> handleSubscribe(StompHeaderAccessor accessor, Message<?> message) {
         String destination = accessor.getDestination();
         if (destination == null) {
+            throw new AccessDeniedException("Destination required");
+        }
+        if (destination.startsWith(USER_PREFIX) || destination.startsWith(APPLICATION_PREFIX)) {
             return message;
         }
         
         Matcher matcher = CONVERSATION_TOPIC_PATTERN.matcher(destination);
-        if (matcher.find()) {
+        if (matcher.matches()) {
             Long conversationId = Long.parseLong(matcher.group(1));
             Long userId = extractUserIdFromAccessor(accessor);
             
@@ -106,12 +121,28 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
                 throw new AccessDeniedException("Authentication required");
             }
             
-            if (!conversationRepository.isParticipant(conversationId, userId)) {
+            if (!membershipCache.isParticipant(conversationId, userId)) {
                 log.warn("User {} unauthorized subscription to conversation {}", userId, conversationId);
                 throw new AccessDeniedException("Not a participant in this conversation");
             }
+            return message;
+        }
+
+        log.warn("User {} denied subscription to: {}", extractUserIdFromAccessor(accessor), destination);
+        throw new AccessDeniedException("Subscription not allowed");
+    }
+
+    /**
+     * Clients only SEND to @MessageMapping handlers. Broker and user destinations are written by
+     * the server alone, so a client can't inject messages into topics, other users' queues or
+     * the relay's broadcasts.
+     */
+    private Message<?> handleSend(StompHeaderAccessor accessor, Message<?> message) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+            log.warn("User {} denied SEND to: {}", extractUserIdFromAccessor(accessor), destination);
+            throw new AccessDeniedException("Sending to this destination is not allowed");
         }
-        
         return message;
     }
     
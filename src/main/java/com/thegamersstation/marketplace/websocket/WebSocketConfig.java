@@ -1,22 +1,76 @@
 package com.thegamersstation.marketplace.websocket;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over WebSocket/SockJS.
+ *
+ * <p>messaging.websocket.broker.mode selects the broker: "simple" keeps subscriptions in this JVM
+ * (single instance only); "relay" forwards /topic and /queue to an external STOMP broker
+ * (RabbitMQ with the STOMP plugin, ActiveMQ, Artemis), so messages published on one instance
+ * reach subscribers on all of them. In relay mode the instances also share their user session
+ * registries and forward user destinations they cannot resolve locally over the broker,
+ * so convertAndSendToUser reaches a user connected to any instance. Those broadcasts live under
+ * /topic like any other broker destination; {@link WebSocketAuthInterceptor} keeps clients from
+ * subscribing or sending to them.</p>
+ *
+ * <p>The simple broker offers clients STOMP heart-beats every messaging.websocket.heartbeat-ms,
+ * which also keeps {@link PresenceRegistry} current; with the relay the external broker negotiates them.</p>
+ */
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
-@EnableScheduling
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+    public static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
     
     private final WebSocketAuthInterceptor authInterceptor;
+
+    @Value("${messaging.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${messaging.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${messaging.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${messaging.websocket.broker.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Value("${messaging.websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${messaging.websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${messaging.websocket.broker.relay.heartbeat-ms:10000}")
+    private long relayHeartbeatMs;
+
+    @Value("${messaging.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    private TaskScheduler heartbeatScheduler;
+
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler) {
+        this.heartbeatScheduler = heartbeatScheduler;
+    }
     
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -37,8 +91,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Enable simple memory-based message broker
-        registry.enableSimpleBroker("/topic", "/queue", "/user");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Client sessions and the shared "system" session use the same broker credentials
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setVirtualHost(relayVirtualHost)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatMs)
+                    .setUserDestinationBroadcast(USER_DESTINATION_BROADCAST)
+                    .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST);
+            log.info("STOMP broker relay to {}:{} (vhost {})", relayHost, relayPort, relayVirtualHost);
+        } else {
+            // Enable simple memory-based message broker
+            registry.enableSimpleBroker("/topic", "/queue", "/user")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
         
         // Set application destination prefix
         registry.setApplicationDestinationPrefixes("/app");
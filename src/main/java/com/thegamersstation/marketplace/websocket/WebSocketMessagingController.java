@@ -2,15 +2,17 @@ package com.thegamersstation.marketplace.websocket;
 
 import com.thegamersstation.marketplace.messaging.dto.MessageDto;
 import com.thegamersstation.marketplace.messaging.dto.SendMessageRequest;
+import com.thegamersstation.marketplace.messaging.service.ConversationMembership;
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
 import com.thegamersstation.marketplace.messaging.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -21,6 +23,9 @@ import java.security.Principal;
 public class WebSocketMessagingController {
     
     private final MessageService messageService;
+    private final ConversationMembershipCache membershipCache;
+    private final PresenceRegistry presenceRegistry;
+    private final TypingIndicators typingIndicators;
     
     @MessageMapping("/conversations/{conversationId}/send")
     @SendToUser("/queue/messages")
@@ -34,7 +39,9 @@ public class WebSocketMessagingController {
         
         try {
             // Send message through service (which handles persistence and broadcasting)
-            return messageService.sendMessage(conversationId, request, userId);
+            MessageDto sent = messageService.sendMessage(conversationId, request, userId);
+            typingIndicators.stop(conversationId, userId);
+            return sent;
         } catch (Exception e) {
             log.error("Error handling WebSocket message: ", e);
             throw e;
@@ -53,20 +60,25 @@ public class WebSocketMessagingController {
         // Could implement WebSocket-based read receipts here
     }
     
+    /**
+     * Typing frames are coalesced by {@link TypingIndicators}, which does the broadcasting.
+     */
     @MessageMapping("/conversations/{conversationId}/typing")
-    @SendTo("/topic/conversation.{conversationId}.typing")
-    public TypingStatusDto handleTyping(
+    public void handleTyping(
             @DestinationVariable Long conversationId,
             @Payload TypingStatusDto typingStatus,
             Principal principal) {
         
         Long userId = extractUserId(principal);
-        typingStatus.setUserId(userId);
+        if (!membershipCache.isParticipant(conversationId, userId)) {
+            log.warn("User {} sent typing status to conversation {} without being a participant", userId, conversationId);
+            return;
+        }
         
         log.debug("User {} typing status: {} in conversation {}", 
             userId, typingStatus.isTyping(), conversationId);
         
-        return typingStatus;
+        typingIndicators.update(conversationId, userId, typingStatus.isTyping());
     }
     
     @SubscribeMapping("/conversations/{conversationId}/status")
@@ -77,10 +89,14 @@ public class WebSocketMessagingController {
         Long userId = extractUserId(principal);
         log.debug("User {} subscribed to conversation {} status", userId, conversationId);
         
-        // Return initial conversation status
+        ConversationMembership membership = membershipCache.findForParticipant(conversationId, userId)
+            .orElseThrow(() -> new AccessDeniedException("Not a participant in this conversation"));
+        long otherUserId = membership.otherParticipant(userId);
+        
         return ConversationStatusDto.builder()
             .conversationId(conversationId)
-            .isOnline(true)
+            .userId(otherUserId)
+            .isOnline(presenceRegistry.isOnline(otherUserId))
             .build();
     }
     
@@ -111,6 +127,8 @@ public class WebSocketMessagingController {
     @lombok.AllArgsConstructor
     static class ConversationStatusDto {
         private Long conversationId;
+        /** The other participant, whose presence isOnline reports */
+        private Long userId;
         private boolean isOnline;
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+-- Post favorites (watchlist)
+-- favorite_count on posts is a denormalized counter maintained by the application
+-- in batches, so listing pages never need to COUNT(*) over post_favorites.
+
+CREATE TABLE post_favorites (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_favorite_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_favorite_post FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE,
+    UNIQUE KEY uk_favorite_user_post (user_id, post_id),
+    INDEX idx_favorite_user_created (user_id, created_at DESC),
+    INDEX idx_favorite_post (post_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE posts ADD COLUMN favorite_count INT NOT NULL DEFAULT 0;
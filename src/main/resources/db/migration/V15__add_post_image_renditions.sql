@@ -0,0 +1,4 @@
+-- Widths of the resized renditions stored next to each post image (e.g. "200,400,800,1600").
+-- Rendition URLs are derived from the original URL; NULL means only the original/thumbnail exist.
+ALTER TABLE post_images
+    ADD COLUMN rendition_widths VARCHAR(64) NULL AFTER thumbnail_url;
@@ -0,0 +1,19 @@
+-- Content-addressed media objects
+-- Uploads are stored under folder/<sha256>.<ext>; identical content is stored and
+-- rendered once. ref_count counts uploads that returned the object and is decremented
+-- by deletes; the object is removed from storage when it reaches zero.
+
+CREATE TABLE media_objects (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    storage_key VARCHAR(300) NOT NULL,
+    url VARCHAR(500) NOT NULL,
+    content_hash CHAR(64) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    rendition_widths VARCHAR(64) NULL,
+    ref_count INT NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_media_objects_storage_key (storage_key),
+    INDEX idx_media_objects_url (url)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,15 @@
+-- Durable queue of stored media objects awaiting deletion
+-- Filled by MediaService.deleteImage (original plus every rendition key) and drained in
+-- batches by a background worker, so requests never wait on storage deletes.
+
+CREATE TABLE media_deletion_queue (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    provider VARCHAR(10) NOT NULL,
+    storage_key VARCHAR(300) NOT NULL,
+    object_key VARCHAR(300) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(500) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_media_deletion_due (provider, next_attempt_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,15 @@
+-- Rendition backfill job checkpoints
+-- last_image_id is the keyset cursor over post_images; a job that was cancelled or
+-- interrupted resumes after it.
+
+CREATE TABLE media_backfill_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    last_image_id BIGINT NOT NULL DEFAULT 0,
+    processed_count INT NOT NULL DEFAULT 0,
+    skipped_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,7 @@
+-- BlurHash placeholder generated with the renditions, so listings can paint a blurred
+-- preview without extra image requests. NULL until renditions exist.
+ALTER TABLE post_images
+    ADD COLUMN placeholder VARCHAR(64) NULL AFTER rendition_widths;
+
+ALTER TABLE media_objects
+    ADD COLUMN placeholder VARCHAR(64) NULL AFTER rendition_widths;
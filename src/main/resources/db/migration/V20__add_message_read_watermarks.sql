@@ -0,0 +1,34 @@
+-- Read state moves from messages.is_read to a per-participant watermark: every message up to
+-- conversation_participants_status.last_read_message_id counts as read by that participant.
+-- Marking a conversation read becomes a single-row update; unread = id above the watermark.
+
+-- Every participant needs a status row to hold its watermark
+INSERT INTO conversation_participants_status (conversation_id, user_id)
+SELECT c.id, c.seller_id FROM conversations c
+WHERE NOT EXISTS (
+    SELECT 1 FROM conversation_participants_status s
+    WHERE s.conversation_id = c.id AND s.user_id = c.seller_id
+);
+
+INSERT INTO conversation_participants_status (conversation_id, user_id)
+SELECT c.id, c.buyer_id FROM conversations c
+WHERE NOT EXISTS (
+    SELECT 1 FROM conversation_participants_status s
+    WHERE s.conversation_id = c.id AND s.user_id = c.buyer_id
+);
+
+-- Start each watermark at the newest message from the other side already marked read
+UPDATE conversation_participants_status s
+JOIN (
+    SELECT cps.id AS status_id, MAX(m.id) AS read_up_to
+    FROM conversation_participants_status cps
+    JOIN messages m ON m.conversation_id = cps.conversation_id
+        AND m.sender_id <> cps.user_id
+        AND m.is_read = TRUE
+    GROUP BY cps.id
+) r ON r.status_id = s.id
+SET s.last_read_message_id = r.read_up_to
+WHERE s.last_read_message_id IS NULL OR s.last_read_message_id < r.read_up_to;
+
+-- Unread counts and the latest message ID are range scans on (conversation_id, id)
+CREATE INDEX idx_messages_conversation_id ON messages (conversation_id, id);
@@ -0,0 +1,28 @@
+-- Materialized unread counters, so inbox loads read counts instead of scanning messages.
+-- conversation_participants_status.unread_count: messages from the other side above the read watermark
+-- user_unread_totals: per-user sums, behind the inbox badge
+-- Both are maintained in the message insert transaction and repaired by a periodic reconciler.
+
+ALTER TABLE conversation_participants_status
+    ADD COLUMN unread_count INT NOT NULL DEFAULT 0 AFTER last_read_message_id;
+
+CREATE TABLE user_unread_totals (
+    user_id BIGINT PRIMARY KEY,
+    unread_conversations INT NOT NULL DEFAULT 0,
+    unread_messages INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_user_unread_totals_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+UPDATE conversation_participants_status s
+SET s.unread_count = (
+    SELECT COUNT(*) FROM messages m
+    WHERE m.conversation_id = s.conversation_id
+      AND m.sender_id <> s.user_id
+      AND m.id > COALESCE(s.last_read_message_id, 0)
+);
+
+INSERT INTO user_unread_totals (user_id, unread_conversations, unread_messages)
+SELECT user_id, SUM(unread_count > 0), SUM(unread_count)
+FROM conversation_participants_status
+GROUP BY user_id;
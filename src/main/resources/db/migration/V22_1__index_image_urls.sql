@@ -0,0 +1,8 @@
+-- Image URLs are looked up by value: rendition results are attached to post_images by url, and
+-- media references are counted and released by the URL stored on posts, users and stores.
+-- Versioned 22.1 so the indexes exist before V23 recounts references against these columns.
+CREATE INDEX idx_post_images_url ON post_images(url);
+CREATE INDEX idx_users_profile_image ON users(profile_image);
+CREATE INDEX idx_users_background_image ON users(background_image);
+CREATE INDEX idx_stores_logo_url ON stores(logo_url);
+CREATE INDEX idx_stores_banner_url ON stores(banner_url);
@@ -0,0 +1,7 @@
+-- Released media objects stay as tombstones until the deletion worker has removed them from
+-- storage. The worker deletes while holding the rows locked, so an upload of the same content
+-- either revives the tombstone first (and the delete is dropped) or waits for the delete to finish.
+ALTER TABLE media_objects ADD COLUMN deleting BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Deletes that kept failing are parked instead of retried forever
+ALTER TABLE media_deletion_queue ADD COLUMN dead_lettered_at TIMESTAMP NULL;
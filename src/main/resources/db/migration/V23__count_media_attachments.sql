@@ -0,0 +1,13 @@
+-- ref_count now counts the entity columns an object is attached to (post images, profile and
+-- background images, store logos and banners) instead of the uploads that returned it.
+-- Uploads create objects unattached; releasing a reference the caller doesn't hold is no longer possible.
+ALTER TABLE media_objects ALTER COLUMN ref_count SET DEFAULT 0;
+
+UPDATE media_objects m
+SET m.ref_count = (SELECT COUNT(*) FROM post_images p WHERE p.url = m.url)
+                + (SELECT COUNT(*) FROM users u WHERE u.profile_image = m.url)
+                + (SELECT COUNT(*) FROM users u WHERE u.background_image = m.url)
+                + (SELECT COUNT(*) FROM stores s WHERE s.logo_url = m.url)
+                + (SELECT COUNT(*) FROM stores s WHERE s.banner_url = m.url),
+    m.updated_at = m.updated_at
+WHERE m.deleting = FALSE;
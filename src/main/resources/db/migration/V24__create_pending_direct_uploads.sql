@@ -0,0 +1,12 @@
+-- Direct uploads issued but not yet confirmed. Shared by all instances, so a confirm can land on
+-- any node; a confirm claims the row with a conditional UPDATE, so two concurrent confirms of the
+-- same key can't both pass.
+
+CREATE TABLE pending_direct_uploads (
+    storage_key VARCHAR(300) NOT NULL PRIMARY KEY,
+    owner_id BIGINT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    claimed_until TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_pending_direct_uploads_expires (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,48 @@
+package com.thegamersstation.marketplace.config;
+
+import com.thegamersstation.marketplace.websocket.WebSocketAuthInterceptor;
+import com.thegamersstation.marketplace.websocket.WebSocketConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * With the STOMP broker's scheduler in the context, {@code @Scheduled} jobs still run on the application pool.
+ */
+class SchedulingConfigTest {
+
+    @Test
+    void scheduledJobsRunOnTheApplicationScheduler() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Jobs.class)) {
+            String thread = context.getBean(Jobs.class).ranOn.get(10, TimeUnit.SECONDS);
+
+            assertThat(thread).startsWith("scheduled-");
+        }
+    }
+
+    @Configuration
+    @Import({SchedulingConfig.class, WebSocketConfig.class})
+    static class Jobs {
+
+        final CompletableFuture<String> ranOn = new CompletableFuture<>();
+
+        @Bean
+        WebSocketAuthInterceptor webSocketAuthInterceptor() {
+            return mock(WebSocketAuthInterceptor.class);
+        }
+
+        @Scheduled(fixedDelay = 10)
+        void job() {
+            ranOn.complete(Thread.currentThread().getName());
+        }
+    }
+}
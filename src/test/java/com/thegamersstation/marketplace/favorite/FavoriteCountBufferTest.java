@@ -0,0 +1,67 @@
+package com.thegamersstation.marketplace.favorite;
+
+import com.thegamersstation.marketplace.post.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deltas leave the buffer only once their flush has committed.
+ */
+class FavoriteCountBufferTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final FavoriteCountBuffer buffer = new FavoriteCountBuffer(postRepository, transactionManager);
+
+    @Test
+    void committedFlushClearsDeltas() {
+        when(postRepository.incrementFavoriteCount(anyCollection(), anyInt())).thenReturn(1);
+        buffer.increment(1L);
+        buffer.increment(1L);
+        buffer.decrement(2L);
+
+        buffer.flush();
+
+        verify(postRepository).incrementFavoriteCount(List.of(1L), 2);
+        verify(postRepository).incrementFavoriteCount(List.of(2L), -1);
+        assertThat(buffer.pendingDelta(1L)).isZero();
+        assertThat(buffer.pendingDelta(2L)).isZero();
+    }
+
+    @Test
+    void failedCommitKeepsDeltas() {
+        buffer.increment(1L);
+        doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(TransactionSystemException.class);
+
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void changesArrivingDuringFlushSurviveIt() {
+        buffer.increment(1L);
+        when(postRepository.incrementFavoriteCount(eq(List.of(1L)), eq(1))).thenAnswer(invocation -> {
+            buffer.increment(1L);
+            return 1;
+        });
+
+        buffer.flush();
+
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1);
+    }
+}
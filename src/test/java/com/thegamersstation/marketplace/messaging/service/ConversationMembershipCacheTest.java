@@ -0,0 +1,112 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.entity.Conversation;
+import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import com.thegamersstation.marketplace.post.Post;
+import com.thegamersstation.marketplace.user.repository.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Entries only become shared once the transaction that created them commits, and leave with their post.
+ */
+class ConversationMembershipCacheTest {
+
+    private static final long SELLER_ID = 1L;
+    private static final long BUYER_ID = 2L;
+    private static final long POST_ID = 10L;
+
+    private final ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    private final ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, 100, 60);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+    @Test
+    void rememberedConversationIsSharedOnlyAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            cache.remember(conversation(7L));
+            // Visible to the creating transaction, e.g. for its initial message
+            assertThat(cache.isParticipant(7L, BUYER_ID)).isTrue();
+            assertThat(cacheSeenFromAnotherThread(7L)).isFalse();
+        });
+
+        assertThat(cache.isParticipant(7L, BUYER_ID)).isTrue();
+    }
+
+    @Test
+    void rolledBackConversationIsNotCached() {
+        transactionTemplate.executeWithoutResult(status -> {
+            cache.remember(conversation(7L));
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.get(7L)).isEmpty();
+    }
+
+    @Test
+    void forgetPostDropsItsConversationsOnCommit() {
+        cache.remember(conversation(7L));
+        cache.remember(conversation(8L));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cache.forgetPost(POST_ID);
+            assertThat(cache.isParticipant(7L, BUYER_ID)).isTrue();
+        });
+
+        assertThat(cache.get(7L)).isEmpty();
+        assertThat(cache.get(8L)).isEmpty();
+    }
+
+    private boolean cacheSeenFromAnotherThread(long conversationId) {
+        when(conversationRepository.findMembershipsByIds(anyList())).thenReturn(List.of());
+        boolean[] seen = new boolean[1];
+        Thread reader = Thread.ofPlatform().start(() -> seen[0] = cache.get(conversationId).isPresent());
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return seen[0];
+    }
+
+    private static Conversation conversation(long id) {
+        return Conversation.builder()
+                .id(id)
+                .seller(User.builder().id(SELLER_ID).build())
+                .buyer(User.builder().id(BUYER_ID).build())
+                .post(Post.builder().id(POST_ID).build())
+                .build();
+    }
+
+    /**
+     * Runs transaction synchronizations without a database.
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.repository.ConversationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Summaries leave the buffer only once their flush has committed.
+ */
+class ConversationSummaryBufferTest {
+
+    private static final LocalDateTime SENT_AT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ConversationSummaryBuffer buffer = new ConversationSummaryBuffer(conversationRepository, transactionManager);
+
+    @Test
+    void committedFlushClearsSummary() {
+        buffer.record(1L, SENT_AT, "hello");
+
+        buffer.flush();
+
+        verify(conversationRepository).updateLastMessage(1L, SENT_AT, "hello");
+        assertThat(buffer.pending(1L)).isEmpty();
+    }
+
+    @Test
+    void failedCommitKeepsSummary() {
+        buffer.record(1L, SENT_AT, "hello");
+        doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(TransactionSystemException.class);
+
+        assertThat(buffer.pending(1L)).contains(new ConversationSummaryBuffer.Summary(SENT_AT, "hello"));
+    }
+
+    @Test
+    void newerSummaryArrivingDuringFlushSurvivesIt() {
+        buffer.record(1L, SENT_AT, "hello");
+        doAnswer(invocation -> {
+            buffer.record(1L, SENT_AT.plusSeconds(1), "still there?");
+            return null;
+        }).when(conversationRepository).updateLastMessage(1L, SENT_AT, "hello");
+
+        buffer.flush();
+
+        assertThat(buffer.pending(1L)).contains(new ConversationSummaryBuffer.Summary(SENT_AT.plusSeconds(1), "still there?"));
+    }
+}
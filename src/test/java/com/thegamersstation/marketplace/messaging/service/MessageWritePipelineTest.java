@@ -0,0 +1,159 @@
+package com.thegamersstation.marketplace.messaging.service;
+
+import com.thegamersstation.marketplace.messaging.entity.Conversation;
+import com.thegamersstation.marketplace.messaging.entity.Message;
+import com.thegamersstation.marketplace.user.repository.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The writer thread against a mocked JDBC layer: results, timeouts, and what happens to senders
+ * when the writer stops.
+ */
+class MessageWritePipelineTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+    private MessageWritePipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseWriter.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void completesWithCallbackResultOnceInserted() throws Exception {
+        AtomicLong nextId = new AtomicLong(41);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keys = invocation.getArgument(1);
+            keys.getKeyList().add(Map.of("GENERATED_KEY", nextId.incrementAndGet()));
+            return 1;
+        });
+        pipeline = pipeline(10_000);
+
+        CompletableFuture<Long> result = pipeline.submit(message(), 2L, Message::getId);
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42L);
+    }
+
+    @Test
+    void submitAndWaitGivesUpAfterWriteTimeout() {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            releaseWriter.await();
+            throw new IllegalStateException("released");
+        });
+        pipeline = pipeline(50);
+
+        assertThatThrownBy(() -> pipeline.submitAndWait(message(), 2L, Message::getId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not confirmed within 50 ms");
+    }
+
+    @Test
+    void writerErrorFailsBatchAndQueuedMessages() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            writing.countDown();
+            releaseWriter.await();
+            throw new StackOverflowError("writer died");
+        });
+        pipeline = pipeline(10_000);
+
+        CompletableFuture<Long> inBatch = pipeline.submit(message(), 2L, Message::getId);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Long> queued = pipeline.submit(message(), 2L, Message::getId);
+        releaseWriter.countDown();
+
+        assertFailsWith(inBatch, StackOverflowError.class);
+        assertFailsWith(queued, StackOverflowError.class);
+        assertThatThrownBy(() -> pipeline.submit(message(), 2L, Message::getId))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void batchWithInterleavedIdsIsWrittenAgainOneByOne() throws Exception {
+        // Insert calls: the blocked first message, the batch of two, then the two retried singly
+        int[][] keysPerCall = {{1}, {10, 11}, {20}, {30}};
+        AtomicLong calls = new AtomicLong();
+        CountDownLatch writing = new CountDownLatch(1);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            int call = (int) calls.getAndIncrement();
+            if (call == 0) {
+                writing.countDown();
+                releaseWriter.await();
+            }
+            KeyHolder keys = invocation.getArgument(1);
+            for (int key : keysPerCall[call]) {
+                keys.getKeyList().add(Map.of("GENERATED_KEY", (long) key));
+            }
+            return keysPerCall[call].length;
+        });
+        // Lock mode 2; the read-back of ids 10..11 finds none of the batch's rows
+        when(jdbcTemplate.queryForObject(eq("SELECT @@innodb_autoinc_lock_mode"), eq(Integer.class))).thenReturn(2);
+        pipeline = new MessageWritePipeline(jdbcTemplate, mock(UnreadCounters.class), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, 100, 10, 200, 10_000);
+
+        CompletableFuture<Long> first = pipeline.submit(message(), 2L, Message::getId);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Long> second = pipeline.submit(message(), 2L, Message::getId);
+        CompletableFuture<Long> third = pipeline.submit(message(), 2L, Message::getId);
+        releaseWriter.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(20L);
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(30L);
+    }
+
+    @Test
+    void rejectsSubmitsAfterShutdown() throws Exception {
+        pipeline = pipeline(10_000);
+        pipeline.shutdown();
+
+        assertThatThrownBy(() -> pipeline.submit(message(), 2L, Message::getId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not running");
+    }
+
+    private MessageWritePipeline pipeline(long writeTimeoutMs) {
+        when(jdbcTemplate.queryForObject(eq("SELECT @@innodb_autoinc_lock_mode"), eq(Integer.class))).thenReturn(1);
+        return new MessageWritePipeline(jdbcTemplate, mock(UnreadCounters.class), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, 100, 10, 200, writeTimeoutMs);
+    }
+
+    private static Message message() {
+        return Message.builder()
+                .conversation(Conversation.builder().id(1L).build())
+                .sender(User.builder().id(3L).build())
+                .content("hello")
+                .messageType(Message.MessageType.TEXT)
+                .build();
+    }
+
+    private static void assertFailsWith(CompletableFuture<?> future, Class<? extends Throwable> cause) {
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(cause);
+    }
+}
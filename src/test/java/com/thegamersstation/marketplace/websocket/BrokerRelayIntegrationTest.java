@@ -0,0 +1,206 @@
+package com.thegamersstation.marketplace.websocket;
+
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
+import com.thegamersstation.marketplace.security.JwtUtil;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.AbstractMessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two application nodes relaying through one embedded STOMP broker: a user message sent on one
+ * node reaches the user's session on the other, and clients can't tap the relay's broadcasts.
+ */
+class BrokerRelayIntegrationTest {
+
+    private static final String SESSION_ID = "session-b1";
+    private static final long USER_ID = 42L;
+    private static final String TOKEN = "token-42";
+
+    private static EmbeddedActiveMQ broker;
+    private static AnnotationConfigApplicationContext nodeA;
+    private static AnnotationConfigApplicationContext nodeB;
+    private static final List<Message<?>> deliveredOnB = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void startBrokerAndNodes() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        broker = new EmbeddedActiveMQ().setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port + "?protocols=STOMP"));
+        broker.start();
+
+        nodeA = startNode(port);
+        nodeB = startNode(port);
+        nodeB.getBean("clientOutboundChannel", AbstractMessageChannel.class).addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                deliveredOnB.add(message);
+                return message;
+            }
+        });
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    void userMessageSentOnOneNodeReachesSessionOnTheOther() throws Exception {
+        MessageChannel inboundB = nodeB.getBean("clientInboundChannel", MessageChannel.class);
+        StompHeaderAccessor connect = clientFrame(StompCommand.CONNECT, null);
+        connect.setAcceptVersion("1.2");
+        connect.setHeartbeat(0, 0);
+        connect.setNativeHeader("Authorization", "Bearer " + TOKEN);
+        inboundB.send(toMessage(connect));
+        awaitDelivery(message -> StompCommand.CONNECTED.equals(StompHeaderAccessor.wrap(message).getCommand()));
+
+        // What StompSubProtocolHandler publishes once the broker confirms the session
+        nodeB.publishEvent(new SessionConnectedEvent(this, toMessage(clientFrame(StompCommand.CONNECTED, null)), user()));
+        inboundB.send(toMessage(clientFrame(StompCommand.SUBSCRIBE, "/user/queue/messages")));
+
+        SimpMessagingTemplate templateA = nodeA.getBean(SimpMessagingTemplate.class);
+        // The broker drops messages published before the subscription reaches it, so keep sending
+        boolean delivered = false;
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!delivered && System.currentTimeMillis() < deadline) {
+            templateA.convertAndSendToUser(String.valueOf(USER_ID), "/queue/messages", "hello from A");
+            delivered = waitFor(BrokerRelayIntegrationTest::isHelloFromA, 500);
+        }
+        assertThat(delivered).as("message relayed to the session on node B").isTrue();
+    }
+
+    @Test
+    void clientCannotSubscribeOrSendToRelayBroadcasts() {
+        MessageChannel inboundB = nodeB.getBean("clientInboundChannel", MessageChannel.class);
+
+        for (String destination : List.of(WebSocketConfig.USER_DESTINATION_BROADCAST, WebSocketConfig.USER_REGISTRY_BROADCAST)) {
+            assertThatThrownBy(() -> inboundB.send(toMessage(clientFrame(StompCommand.SUBSCRIBE, destination))))
+                    .isInstanceOf(MessageDeliveryException.class)
+                    .hasRootCauseInstanceOf(AccessDeniedException.class);
+            assertThatThrownBy(() -> inboundB.send(toMessage(clientFrame(StompCommand.SEND, destination))))
+                    .isInstanceOf(MessageDeliveryException.class)
+                    .hasRootCauseInstanceOf(AccessDeniedException.class);
+        }
+    }
+
+    private static boolean isHelloFromA(Message<?> message) {
+        return message.getPayload() instanceof byte[] payload
+                && new String(payload, StandardCharsets.UTF_8).contains("hello from A");
+    }
+
+    private static void awaitDelivery(Predicate<Message<?>> condition) throws InterruptedException {
+        assertThat(waitFor(condition, 10_000)).isTrue();
+    }
+
+    private static boolean waitFor(Predicate<Message<?>> condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (deliveredOnB.stream().anyMatch(condition)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private static AnnotationConfigApplicationContext startNode(int brokerPort) throws InterruptedException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("relay", Map.of(
+                "messaging.websocket.broker.mode", "relay",
+                "messaging.websocket.broker.relay.host", "127.0.0.1",
+                "messaging.websocket.broker.relay.port", brokerPort)));
+        context.register(Node.class);
+        context.refresh();
+
+        StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(relay.isBrokerAvailable()).as("relay connected to the broker").isTrue();
+        return context;
+    }
+
+    private static StompHeaderAccessor clientFrame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setUser(user());
+        if (destination != null) {
+            accessor.setDestination(destination);
+            accessor.setSubscriptionId("sub-0");
+        }
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private static Message<byte[]> toMessage(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal user() {
+        return new UsernamePasswordAuthenticationToken(USER_ID, null, List.of());
+    }
+
+    @Configuration
+    @Import(WebSocketConfig.class)
+    static class Node {
+
+        @Bean
+        WebSocketAuthInterceptor webSocketAuthInterceptor() {
+            JwtUtil jwtUtil = mock(JwtUtil.class);
+            when(jwtUtil.validateAccessToken(TOKEN)).thenReturn(true);
+            when(jwtUtil.extractUserId(TOKEN)).thenReturn(USER_ID);
+            when(jwtUtil.extractRole(TOKEN)).thenReturn("USER");
+            return new WebSocketAuthInterceptor(jwtUtil, mock(ConversationMembershipCache.class),
+                    mock(PresenceRegistry.class));
+        }
+    }
+}
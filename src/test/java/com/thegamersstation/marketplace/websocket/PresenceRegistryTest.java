@@ -0,0 +1,221 @@
+package com.thegamersstation.marketplace.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Session counting per user: several sessions, disconnects racing connects, and sessions that go
+ * silent and come back.
+ */
+class PresenceRegistryTest {
+
+    private static final long USER_ID = 42L;
+    /** Server heart-beat; sessions offering one are stale after two missed intervals (20 ms) */
+    private static final long HEARTBEAT_MS = 10;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PresenceRegistry registry = new PresenceRegistry(
+            new StaticListableBeanFactory().getBeanProvider(SimpUserRegistry.class),
+            meterRegistry, "simple", HEARTBEAT_MS, 2);
+
+    @Test
+    void userStaysOnlineUntilLastSessionCloses() {
+        connect("s1", USER_ID, 0);
+        connect("s2", USER_ID, 0);
+        assertThat(registry.isOnline(USER_ID)).isTrue();
+
+        disconnect("s1", USER_ID);
+        assertThat(registry.isOnline(USER_ID)).isTrue();
+
+        disconnect("s2", USER_ID);
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(onlineUsers()).isZero();
+    }
+
+    @Test
+    void repeatedEventsAreCountedOnce() {
+        connect("s1", USER_ID, 0);
+        connect("s1", USER_ID, 0);
+        assertThat(onlineUsers()).isEqualTo(1);
+
+        disconnect("s1", USER_ID);
+        disconnect("s1", USER_ID);
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(onlineUsers()).isZero();
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void concurrentConnectsAndDisconnectsKeepCountsExact() throws Exception {
+        connect("anchor", USER_ID, 0);
+        int threads = 8;
+        int rounds = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean seenOffline = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> churn = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                churn.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < rounds; round++) {
+                        String sessionId = "churn-" + thread + "-" + round;
+                        connect(sessionId, USER_ID, 0);
+                        disconnect(sessionId, USER_ID);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> watcher = executor.submit(() -> {
+                start.await();
+                while (churn.stream().anyMatch(future -> !future.isDone())) {
+                    if (!registry.isOnline(USER_ID)) {
+                        seenOffline.set(true);
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : churn) {
+                future.get();
+            }
+            watcher.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The anchor session kept the user online throughout
+        assertThat(seenOffline).isFalse();
+        assertThat(onlineUsers()).isEqualTo(1);
+        disconnect("anchor", USER_ID);
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(onlineUsers()).isZero();
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void disconnectRacingConnectLeavesUserOffline() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                String sessionId = "race-" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> connecting = executor.submit(() -> {
+                    start.await();
+                    connect(sessionId, USER_ID, 0);
+                    return null;
+                });
+                Future<?> disconnecting = executor.submit(() -> {
+                    start.await();
+                    disconnect(sessionId, USER_ID);
+                    return null;
+                });
+                start.countDown();
+                connecting.get();
+                disconnecting.get();
+                // Whichever came first, a disconnected session must not stay counted
+                disconnect(sessionId, USER_ID);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(onlineUsers()).isZero();
+    }
+
+    @Test
+    void silentSessionStopsCountingAndComesBackOnNextFrame() throws Exception {
+        connect("s1", USER_ID, HEARTBEAT_MS);
+        Thread.sleep(100);
+
+        registry.evictStaleSessions();
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(sessions()).as("kept until the disconnect").isEqualTo(1);
+
+        registry.touch("s1");
+        assertThat(registry.isOnline(USER_ID)).isTrue();
+
+        disconnect("s1", USER_ID);
+        assertThat(registry.isOnline(USER_ID)).isFalse();
+        assertThat(onlineUsers()).isZero();
+        assertThat(sessions()).isZero();
+    }
+
+    @Test
+    void disconnectOfSilentSessionReleasesNothingTwice() throws Exception {
+        connect("s1", USER_ID, HEARTBEAT_MS);
+        connect("s2", USER_ID, 0);
+        Thread.sleep(100);
+
+        registry.evictStaleSessions();
+        disconnect("s1", USER_ID);
+
+        // s2 still holds the user online
+        assertThat(registry.isOnline(USER_ID)).isTrue();
+        assertThat(onlineUsers()).isEqualTo(1);
+    }
+
+    @Test
+    void sessionWithoutHeartbeatsIsNeverStale() throws Exception {
+        connect("s1", USER_ID, 0);
+        Thread.sleep(100);
+
+        registry.evictStaleSessions();
+
+        assertThat(registry.isOnline(USER_ID)).isTrue();
+    }
+
+    private void connect(String sessionId, long userId, long clientHeartbeatMs) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setHeartbeat(clientHeartbeatMs, 0);
+        StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+        connected.setSessionId(sessionId);
+        connected.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER,
+                MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders());
+        registry.onConnected(new SessionConnectedEvent(this, message, user(userId)));
+    }
+
+    private void disconnect(String sessionId, long userId) {
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId(sessionId);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders());
+        registry.onDisconnected(new SessionDisconnectEvent(this, message, sessionId, CloseStatus.NORMAL, user(userId)));
+    }
+
+    private double onlineUsers() {
+        return meterRegistry.get("messaging.presence.users").gauge().value();
+    }
+
+    private double sessions() {
+        return meterRegistry.get("messaging.presence.sessions").gauge().value();
+    }
+
+    private static Principal user(long userId) {
+        return new UsernamePasswordAuthenticationToken(userId, null, List.of());
+    }
+}
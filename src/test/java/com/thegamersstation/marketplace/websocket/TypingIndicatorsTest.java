@@ -0,0 +1,95 @@
+package com.thegamersstation.marketplace.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Keystroke frames collapse into one "typing" broadcast per interval, and "stopped" goes out exactly once.
+ */
+class TypingIndicatorsTest {
+
+    private static final long CONVERSATION_ID = 7L;
+    private static final long USER_ID = 42L;
+    private static final String TOPIC = "/topic/conversation.7.typing";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    @Test
+    void framesWithinIntervalAreCoalesced() {
+        TypingIndicators indicators = indicators(60_000, 60_000);
+
+        for (int keystroke = 0; keystroke < 20; keystroke++) {
+            indicators.update(CONVERSATION_ID, USER_ID, true);
+        }
+
+        verify(messagingTemplate, times(1)).convertAndSend(TOPIC, status(true));
+    }
+
+    @Test
+    void typingIsBroadcastAgainOnceIntervalPassed() throws Exception {
+        TypingIndicators indicators = indicators(20, 60_000);
+
+        indicators.update(CONVERSATION_ID, USER_ID, true);
+        Thread.sleep(50);
+        indicators.update(CONVERSATION_ID, USER_ID, true);
+
+        verify(messagingTemplate, times(2)).convertAndSend(TOPIC, status(true));
+    }
+
+    @Test
+    void stopIsBroadcastOnce() {
+        TypingIndicators indicators = indicators(60_000, 60_000);
+        indicators.update(CONVERSATION_ID, USER_ID, true);
+
+        indicators.update(CONVERSATION_ID, USER_ID, false);
+        indicators.stop(CONVERSATION_ID, USER_ID);
+        indicators.expire();
+
+        verify(messagingTemplate, times(1)).convertAndSend(TOPIC, status(false));
+    }
+
+    @Test
+    void stopWithoutTypingBroadcastsNothing() {
+        indicators(60_000, 60_000).stop(CONVERSATION_ID, USER_ID);
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void unrefreshedIndicatorExpires() throws Exception {
+        TypingIndicators indicators = indicators(60_000, 20);
+        indicators.update(CONVERSATION_ID, USER_ID, true);
+        Thread.sleep(50);
+
+        indicators.expire();
+        indicators.expire();
+
+        verify(messagingTemplate, times(1)).convertAndSend(TOPIC, status(false));
+    }
+
+    @Test
+    void refreshedIndicatorDoesNotExpire() {
+        TypingIndicators indicators = indicators(60_000, 60_000);
+        indicators.update(CONVERSATION_ID, USER_ID, true);
+
+        indicators.expire();
+
+        verify(messagingTemplate, never()).convertAndSend(TOPIC, status(false));
+    }
+
+    private TypingIndicators indicators(long broadcastIntervalMs, long expireAfterMs) {
+        return new TypingIndicators(messagingTemplate, new SimpleMeterRegistry(), broadcastIntervalMs, expireAfterMs);
+    }
+
+    private static WebSocketMessagingController.TypingStatusDto status(boolean typing) {
+        return new WebSocketMessagingController.TypingStatusDto(USER_ID, typing);
+    }
+}
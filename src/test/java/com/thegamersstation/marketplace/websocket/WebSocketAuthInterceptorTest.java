@@ -0,0 +1,83 @@
+package com.thegamersstation.marketplace.websocket;
+
+import com.thegamersstation.marketplace.messaging.service.ConversationMembershipCache;
+import com.thegamersstation.marketplace.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Which destinations clients may subscribe and send to.
+ */
+class WebSocketAuthInterceptorTest {
+
+    private static final long USER_ID = 42L;
+
+    private final ConversationMembershipCache membershipCache = mock(ConversationMembershipCache.class);
+    private final WebSocketAuthInterceptor interceptor = new WebSocketAuthInterceptor(
+            mock(JwtUtil.class), membershipCache, mock(PresenceRegistry.class));
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void deniesSubscribingToRelayBroadcasts() {
+        assertDenied(frame(StompCommand.SUBSCRIBE, WebSocketConfig.USER_DESTINATION_BROADCAST));
+        assertDenied(frame(StompCommand.SUBSCRIBE, WebSocketConfig.USER_REGISTRY_BROADCAST));
+    }
+
+    @Test
+    void deniesSubscribingToOtherBrokerDestinations() {
+        assertDenied(frame(StompCommand.SUBSCRIBE, "/topic/anything"));
+        assertDenied(frame(StompCommand.SUBSCRIBE, "/queue/messages-usersession1"));
+    }
+
+    @Test
+    void allowsOwnQueuesAndParticipantConversationTopics() {
+        when(membershipCache.isParticipant(7L, USER_ID)).thenReturn(true);
+
+        assertAllowed(frame(StompCommand.SUBSCRIBE, "/user/queue/messages"));
+        assertAllowed(frame(StompCommand.SUBSCRIBE, "/topic/conversation.7.messages"));
+        assertAllowed(frame(StompCommand.SUBSCRIBE, "/topic/conversation.7.typing"));
+        assertDenied(frame(StompCommand.SUBSCRIBE, "/topic/conversation.8.messages"));
+    }
+
+    @Test
+    void allowsSendingOnlyToApplicationDestinations() {
+        assertAllowed(frame(StompCommand.SEND, "/app/conversations/7/send"));
+
+        for (String destination : List.of(WebSocketConfig.USER_DESTINATION_BROADCAST,
+                WebSocketConfig.USER_REGISTRY_BROADCAST, "/topic/conversation.7.messages",
+                "/user/43/queue/messages", "/queue/messages-usersession1")) {
+            assertDenied(frame(StompCommand.SEND, destination));
+        }
+    }
+
+    private void assertAllowed(Message<?> message) {
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    private void assertDenied(Message<?> message) {
+        assertThatThrownBy(() -> interceptor.preSend(message, channel)).isInstanceOf(AccessDeniedException.class);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("session1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        accessor.setUser(new UsernamePasswordAuthenticationToken(USER_ID, null, List.of()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}